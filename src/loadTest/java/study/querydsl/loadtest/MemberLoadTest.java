@@ -0,0 +1,248 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// >> 81. 회원 조회 API 부하 테스트
+// 1. 내장 메모리 H2 로 앱을 띄우고 회원 N 명을 JDBC 배치로 채운다.
+// 2. 열린 모델(open model): 응답을 기다리지 않고 정해진 간격(1 / rate)마다 요청을 보낸다.
+//    지연 시간은 "보내려던 시각"부터 재기 때문에 서버가 밀려서 요청이 늦게 나간 시간도 포함된다. (coordinated omission 보정)
+// 3. warmup 동안의 결과는 버리고 duration 동안의 처리량, p50 / p99 / p999 를 조건 종류별로 출력한다.
+// 동시에 처리 중인 요청이 concurrency 를 넘으면 보내지 않고 dropped 로 센다. (클라이언트가 병목이 되지 않도록)
+//
+// 설정 (-D): members, teams, rate(초당 요청), duration(초), warmup(초), concurrency,
+//           mix(조건별 비율, 예: username:30,team:30,age:30,empty:5,paging:5)
+public class MemberLoadTest {
+
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	public static void main(String[] args) throws Exception {
+		int members = Integer.getInteger("members", 100_000);
+		int teams = Integer.getInteger("teams", 10);
+		int rate = Integer.getInteger("rate", 200);
+		int duration = Integer.getInteger("duration", 30);
+		int warmup = Integer.getInteger("warmup", 10);
+		int concurrency = Integer.getInteger("concurrency", 64);
+		Map<Scenario, Integer> mix = parseMix(System.getProperty("mix", "username:30,team:30,age:30,empty:5,paging:5"));
+
+		try (ConfigurableApplicationContext context = SpringApplication.run(QuerydslApplication.class,
+			"--server.port=0",
+			"--spring.profiles.active=loadtest",
+			"--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+			"--spring.jpa.hibernate.ddl-auto=create",
+			"--decorator.datasource.enabled=false",
+			"--member.warmup.enabled=false",
+			"--logging.level.org.hibernate.SQL=warn",
+			"--logging.level.org.hibernate.type=warn")) {
+
+			long seedStart = System.nanoTime();
+			seed(context.getBean(JdbcTemplate.class), members, teams);
+			System.out.printf("seeded %d members / %d teams in %dms%n", members, teams,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+			String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			LoadGenerator generator = new LoadGenerator(baseUrl, concurrency, mix, members, teams);
+			try {
+				generator.run(rate, Duration.ofSeconds(warmup));
+				generator.reset();
+				long start = System.nanoTime();
+				generator.run(rate, Duration.ofSeconds(duration));
+				generator.report(System.nanoTime() - start);
+			} finally {
+				generator.shutdown();
+			}
+		}
+	}
+
+	private static void seed(JdbcTemplate jdbcTemplate, int members, int teams) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<Object[]> teamRows = new ArrayList<>(teams);
+		for (int i = 0; i < teams; i++) {
+			teamRows.add(new Object[]{(long) i + 1, "team" + i, now, now});
+		}
+		jdbcTemplate.batchUpdate("insert into team (team_id, name, created_date, last_modified_date) values (?, ?, ?, ?)", teamRows);
+
+		List<Object[]> memberRows = new ArrayList<>(1000);
+		for (int i = 0; i < members; i++) {
+			int team = i % teams;
+			memberRows.add(new Object[]{(long) i + 1, "member" + i, "member" + i, i % 100, (long) team + 1, "team" + team, now, now});
+			if (memberRows.size() == 1000 || i == members - 1) {
+				jdbcTemplate.batchUpdate("insert into member (member_id, username, username_lower, age, team_id, team_name, created_date, last_modified_date)" +
+					" values (?, ?, ?, ?, ?, ?, ?, ?)", memberRows);
+				memberRows.clear();
+			}
+		}
+	}
+
+	private static Map<Scenario, Integer> parseMix(String mix) {
+		Map<Scenario, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split(":");
+			weights.put(Scenario.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+
+	// 조건 종류
+	enum Scenario {
+		USERNAME, TEAM, AGE, EMPTY, PAGING;
+
+		String path(ThreadLocalRandom random, int members, int teams) {
+			switch (this) {
+				case USERNAME:
+					return "/v1/members?username=member" + random.nextInt(members);
+				case TEAM:
+					return "/v1/members?teamName=team" + random.nextInt(teams);
+				case AGE:
+					int ageGoe = random.nextInt(90);
+					return "/v1/members?ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10);
+				case EMPTY:
+					return "/v1/members";
+				case PAGING:
+					return "/v2/members?teamName=team" + random.nextInt(teams) + "&page=" + random.nextInt(10) + "&size=20";
+				default:
+					throw new IllegalStateException();
+			}
+		}
+	}
+
+	static class LoadGenerator {
+
+		private final String baseUrl;
+		private final int concurrency;
+		private final int members;
+		private final int teams;
+		private final Scenario[] wheel;	// 비율대로 채운 배열에서 무작위로 고른다.
+		private final ExecutorService executor;
+		private final HttpClient client;
+
+		private final Map<Scenario, Recorder> recorders = new LinkedHashMap<>();
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final LongAdder completed = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+
+		LoadGenerator(String baseUrl, int concurrency, Map<Scenario, Integer> mix, int members, int teams) {
+			this.baseUrl = baseUrl;
+			this.concurrency = concurrency;
+			this.members = members;
+			this.teams = teams;
+			List<Scenario> wheel = new ArrayList<>();
+			mix.forEach((scenario, weight) -> {
+				for (int i = 0; i < weight; i++) {
+					wheel.add(scenario);
+				}
+				recorders.put(scenario, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+			});
+			this.wheel = wheel.toArray(new Scenario[0]);
+			this.executor = Executors.newFixedThreadPool(concurrency);
+			this.client = HttpClient.newBuilder()
+				.executor(executor)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		}
+
+		void run(int rate, Duration duration) {
+			long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+			long start = System.nanoTime();
+			long end = start + duration.toNanos();
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+
+			for (long intended = start; intended < end; intended += interval) {
+				long wait = intended - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				if (inFlight.get() >= concurrency) {
+					dropped.increment();
+					continue;
+				}
+				Scenario scenario = wheel[random.nextInt(wheel.length)];
+				send(scenario, scenario.path(random, members, teams), intended);
+			}
+			awaitInFlight();
+		}
+
+		private void send(Scenario scenario, String path, long intended) {
+			inFlight.incrementAndGet();
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(30))
+				.build();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, error) -> {
+					long latency = System.nanoTime() - intended;
+					recorders.get(scenario).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+					if (error != null || response.statusCode() != 200) {
+						errors.increment();
+					} else {
+						completed.increment();
+					}
+					inFlight.decrementAndGet();
+				});
+		}
+
+		private void awaitInFlight() {
+			while (inFlight.get() > 0) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+			}
+		}
+
+		void reset() {
+			recorders.values().forEach(Recorder::reset);
+			completed.reset();
+			errors.reset();
+			dropped.reset();
+		}
+
+		void report(long elapsedNanos) {
+			double seconds = elapsedNanos / 1e9;
+			System.out.printf("%nthroughput: %.1f req/s (completed=%d, errors=%d, dropped=%d, %.1fs)%n",
+				completed.sum() / seconds, completed.sum(), errors.sum(), dropped.sum(), seconds);
+			System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "scenario", "count", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+
+			Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+			recorders.forEach((scenario, recorder) -> {
+				Histogram histogram = recorder.getIntervalHistogram();
+				total.add(histogram);
+				print(scenario.name().toLowerCase(), histogram);
+			});
+			print("all", total);
+		}
+
+		private static void print(String name, Histogram histogram) {
+			System.out.printf("%-10s %10d %10.2f %10.2f %10.2f %10.2f%n", name,
+				histogram.getTotalCount(),
+				histogram.getValueAtPercentile(50) / 1e6,
+				histogram.getValueAtPercentile(99) / 1e6,
+				histogram.getValueAtPercentile(99.9) / 1e6,
+				histogram.getMaxValue() / 1e6);
+		}
+
+		void shutdown() {
+			executor.shutdownNow();
+		}
+	}
+}
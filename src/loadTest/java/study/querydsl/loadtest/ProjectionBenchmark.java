@@ -0,0 +1,114 @@
+package study.querydsl.loadtest;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import study.querydsl.repository.MethodHandleProjections;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// >> 70. 프로젝션 비용 비교 (Projections.* 리플렉션 vs MethodHandleProjections)
+// DB 없이 같은 행(Object[])으로 newInstance 만 반복 호출해서 행 하나당 시간을 잰다.
+// warmup 라운드는 버리고(JIT 컴파일) 측정 라운드의 평균을 출력한다.
+//
+// 설정 (-D): rows(라운드당 행 수), rounds(측정 라운드), warmupRounds
+public class ProjectionBenchmark {
+
+	private static final Expression<?>[] ARGS = {
+		member.id.as("memberId"),
+		member.username,
+		member.age,
+		team.id.as("teamId"),
+		team.name.as("teamName")
+	};
+	private static final Object[] ROW = {1L, "member1", 10, 1L, "teamA"};
+
+	private static long sink;	// 결과를 써서 JIT 이 호출을 없애지 못하게 한다.
+
+	public static void main(String[] args) {
+		int rows = Integer.getInteger("rows", 1_000_000);
+		int rounds = Integer.getInteger("rounds", 10);
+		int warmupRounds = Integer.getInteger("warmupRounds", 5);
+
+		Map<String, FactoryExpression<Row>> projections = new LinkedHashMap<>();
+		projections.put("Projections.constructor", Projections.constructor(Row.class, ARGS));
+		projections.put("MethodHandleProjections.constructor", MethodHandleProjections.constructor(Row.class, ARGS));
+		projections.put("Projections.bean", Projections.bean(Row.class, ARGS));
+		projections.put("MethodHandleProjections.bean", MethodHandleProjections.bean(Row.class, ARGS));
+		projections.put("Projections.fields", Projections.fields(Row.class, ARGS));
+		projections.put("MethodHandleProjections.fields", MethodHandleProjections.fields(Row.class, ARGS));
+
+		System.out.printf("%-40s %12s%n", "projection", "ns/row");
+		projections.forEach((name, projection) -> {
+			for (int i = 0; i < warmupRounds; i++) {
+				run(projection, rows);
+			}
+			long elapsed = 0;
+			for (int i = 0; i < rounds; i++) {
+				elapsed += run(projection, rows);
+			}
+			System.out.printf("%-40s %12.1f%n", name, (double) elapsed / rounds / rows);
+		});
+		System.out.println("sink = " + sink);
+	}
+
+	private static long run(FactoryExpression<Row> projection, int rows) {
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < rows; i++) {
+			sum += projection.newInstance(ROW).getAge();
+		}
+		sink += sum;
+		return System.nanoTime() - start;
+	}
+
+	// MemberTeamDto 와 같은 필드. bean / fields 용 기본 생성자와 setter 도 있다.
+	public static class Row {
+
+		private Long memberId;
+		private String username;
+		private int age;
+		private Long teamId;
+		private String teamName;
+
+		public Row() {
+		}
+
+		public Row(Long memberId, String username, int age, Long teamId, String teamName) {
+			this.memberId = memberId;
+			this.username = username;
+			this.age = age;
+			this.teamId = teamId;
+			this.teamName = teamName;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setMemberId(Long memberId) {
+			this.memberId = memberId;
+		}
+
+		public void setUsername(String username) {
+			this.username = username;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public void setTeamId(Long teamId) {
+			this.teamId = teamId;
+		}
+
+		public void setTeamName(String teamName) {
+			this.teamName = teamName;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package study.querydsl.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+// >> 78. 시작 시간 측정 (./gradlew startupTime)
+// 새로 띄운 JVM 에서 앱을 한 번 띄우고 "JVM 시작 ~ 첫 /v1/members 응답" 시간을 잰다.
+// 프로필마다 gradle 이 JVM 을 따로 띄운다. (한 JVM 에서 두 번 띄우면 두 번째는 클래스 로딩 / JIT 이 끝난 상태라 빨라 보임)
+// DB 는 측정 전용 파일 DB(startup.db)를 쓰고, 프로필의 ddl-auto 설정은 그대로 둔다. (fast 의 validate 를 위해 스키마는 미리 만든다)
+//
+// 설정 (-D): startup.db, startup.profiles, startup.label, startup.result(결과를 쌓을 csv),
+//           startup.schema-only(스키마만 만들고 종료), startup.budget-ms(넘으면 실패, 없으면 검사 안 함)
+public class StartupTimeProbe {
+
+	public static void main(String[] args) throws Exception {
+		String db = System.getProperty("startup.db");
+		String profiles = System.getProperty("startup.profiles", "startup");
+		String label = System.getProperty("startup.label", profiles);
+
+		if (Boolean.getBoolean("startup.schema-only")) {
+			SpringApplication.run(QuerydslApplication.class,
+				"--spring.profiles.active=startup",
+				"--spring.datasource.url=" + db,
+				"--spring.jpa.hibernate.ddl-auto=create",
+				"--spring.main.web-application-type=none").close();
+			return;
+		}
+
+		long elapsed;
+		try (ConfigurableApplicationContext context = SpringApplication.run(QuerydslApplication.class,
+			"--spring.profiles.active=" + profiles,
+			"--spring.datasource.url=" + db,
+			"--server.port=0")) {
+
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpResponse<String> response = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/members?username=startup")).build(),
+				HttpResponse.BodyHandlers.ofString());
+			elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException("첫 요청이 실패했습니다. status=" + response.statusCode());
+			}
+		}
+
+		System.out.printf("startup time to first /v1/members: %s=%dms%n", label, elapsed);
+		String result = System.getProperty("startup.result");
+		if (result != null) {
+			record(Paths.get(result), label, elapsed);
+		}
+
+		Long budget = Long.getLong("startup.budget-ms");
+		if (budget != null && elapsed > budget) {
+			System.err.printf("startup time %dms exceeded budget %dms%n", elapsed, budget);
+			System.exit(1);
+		}
+	}
+
+	private static void record(Path file, String label, long millis) throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		String line = LocalDateTime.now() + "," + label + "," + millis + "\n";
+		Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+}
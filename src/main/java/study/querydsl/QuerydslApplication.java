@@ -1,13 +1,35 @@
 package study.querydsl;
 
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.repository.ChangeFeedEventListener;
+import study.querydsl.repository.ChangeFeedPoller;
+import study.querydsl.repository.MemberExporter;
+import study.querydsl.repository.TeamStatsEventListener;
 
 @SpringBootApplication
+@EnableScheduling	// >> 74. 야간 내보내기 등 스케줄 작업
+@EnableJpaAuditing	// >> 76. 생성/수정 시각
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	// >> 78. lazy-initialization 을 켜도 바로 만들어야 하는 빈
+	// 누가 주입받지 않아도 스스로 동작하는 빈들이라 지연시키면 아예 만들어지지 않는다.
+	// (하이버네이트 이벤트 리스너 등록, 스케줄 작업)
+	@Bean
+	static LazyInitializationExcludeFilter eagerBeans() {
+		return LazyInitializationExcludeFilter.forBeanTypes(
+			TeamStatsEventListener.class,
+			ChangeFeedEventListener.class,
+			ChangeFeedPoller.class,
+			MemberExporter.class);
+	}
+
 }
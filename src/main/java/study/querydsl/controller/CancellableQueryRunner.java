@@ -0,0 +1,175 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// >> 67. 조회 API 타임아웃 / 요청 취소
+// 조회를 전용 스레드 풀에서 비동기(DeferredResult)로 돌리고, 요청이 시간 초과되거나 클라이언트가 연결을 끊으면
+// 실행 중인 JDBC statement 를 취소해서 커넥션과 DB 작업을 바로 돌려준다.
+// 취소할 세션을 잡아야 하기 때문에 조회는 읽기 전용 트랜잭션 안에서 실행한다.
+// - 같은 key 로 실행 중인 조회가 있으면 합친다. (>> 66) 합치는 것은 트랜잭션을 열기 전이라 기다리는 요청은 커넥션을 잡지 않는다.
+//   요청 스레드도 잡지 않고 결과가 나오면 그 자리에서 응답한다.
+// - 여러 요청이 같이 기다리는 statement 는 마지막으로 남은 요청이 떠날 때만 취소한다.
+// - 스레드 수와 대기열 크기가 정해진 풀을 쓴다. (커넥션 풀보다 작게) 대기열이 차면 RejectedExecutionException -> 503
+//   대기열에서 기다린 시간도 요청 타임아웃에 포함되니 대기열은 짧게 둔다.
+@Component
+public class CancellableQueryRunner {
+
+	// DB 쿼리 타임아웃이 먼저 걸리도록 요청 타임아웃은 조금 더 길게 잡는다.
+	private static final long REQUEST_TIMEOUT_GRACE_MILLIS = 500;
+
+	private final TransactionTemplate transactionTemplate;
+	private final MeterRegistry meterRegistry;
+	private final ThreadPoolExecutor executor;
+	private final ConcurrentHashMap<Object, Flight<?>> flights = new ConcurrentHashMap<>();
+
+	@PersistenceContext
+	private EntityManager em;
+
+	public CancellableQueryRunner(PlatformTransactionManager transactionManager,
+								  MeterRegistry meterRegistry,
+								  @Value("${member.search.query-threads:8}") int threads,
+								  @Value("${member.search.query-queue-size:50}") int queueSize) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.meterRegistry = meterRegistry;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+	}
+
+	// key 가 같은 요청은 조회 한 번을 같이 기다린다. response 는 요청마다 따로 만든다.
+	public <V, T> DeferredResult<T> run(String endpoint, Duration timeout, Object key,
+										Supplier<V> query, Function<V, T> response) {
+		Object flightKey = Arrays.asList(endpoint, key);
+		Flight<V> flight = join(flightKey, query);
+
+		DeferredResult<T> result = new DeferredResult<>(timeout.toMillis() + REQUEST_TIMEOUT_GRACE_MILLIS);
+		// 응답은 스프링 기본 처리에 맡긴다. (시간 초과는 503)
+		result.onTimeout(() -> recordTimeout(endpoint, "request-timeout"));
+		result.onError(error -> recordTimeout(endpoint, "client-abort"));
+		result.onCompletion(() -> leave(flightKey, flight));
+
+		flight.future.whenComplete((value, error) -> {
+			if (error != null) {
+				result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+			} else {
+				try {
+					result.setResult(response.apply(value));
+				} catch (RuntimeException e) {
+					result.setErrorResult(e);
+				}
+			}
+		});
+		return result;
+	}
+
+	public void recordTimeout(String endpoint, String reason) {
+		meterRegistry.counter("member.search.timeouts", "endpoint", endpoint, "reason", reason).increment();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@SuppressWarnings("unchecked")
+	<V> Flight<V> join(Object flightKey, Supplier<V> query) {
+		Flight<?>[] created = new Flight<?>[1];
+		Flight<V> flight = (Flight<V>) flights.compute(flightKey, (key, existing) -> {
+			Flight<?> joined = existing;
+			if (joined == null || joined.cancelled) {
+				joined = new Flight<V>();
+				created[0] = joined;
+			}
+			joined.waiters++;
+			return joined;
+		});
+		if (created[0] != null) {
+			try {
+				// 실행한 요청의 API 통계(>> 80)에 센다.
+				executor.execute(RequestStatistics.propagate(() -> execute(flightKey, flight, query)));
+			} catch (RejectedExecutionException e) {
+				flights.remove(flightKey, flight);
+				throw e;
+			}
+		}
+		return flight;
+	}
+
+	private <V> void execute(Object flightKey, Flight<V> flight, Supplier<V> query) {
+		try {
+			if (flight.cancelled) {
+				throw new CancellationException("모든 요청이 떠나서 실행하지 않습니다.");
+			}
+			flight.future.complete(transactionTemplate.execute(status -> {
+				flight.canceller = statementCanceller();
+				try {
+					return query.get();
+				} finally {
+					flight.canceller = null;
+				}
+			}));
+		} catch (RuntimeException | Error e) {
+			flight.future.completeExceptionally(e);
+		} finally {
+			flights.remove(flightKey, flight);
+		}
+	}
+
+	// 지금 트랜잭션의 세션에서 실행 중인 statement 를 취소하는 동작
+	Runnable statementCanceller() {
+		return em.unwrap(Session.class)::cancelQuery;
+	}
+
+	// 요청 하나가 끝남 (정상 응답, 시간 초과, 연결 끊김). 기다리는 요청이 더 없고 아직 실행 중이면 취소한다.
+	void leave(Object flightKey, Flight<?> flight) {
+		boolean[] last = new boolean[1];
+		flights.compute(flightKey, (key, existing) -> {
+			if (--flight.waiters == 0 && !flight.future.isDone()) {
+				flight.cancelled = true;
+				last[0] = true;
+			}
+			// 취소된 조회에는 새 요청이 붙지 않게 뺀다.
+			return existing == flight && flight.cancelled ? null : existing;
+		});
+		if (last[0]) {
+			Runnable canceller = flight.canceller;
+			if (canceller != null) {
+				canceller.run();
+			}
+		}
+	}
+
+	// 같은 key 로 실행 중인 조회 하나 (waiters 는 flights.compute 안에서만 바꾼다)
+	static class Flight<V> {
+
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		private int waiters;
+		private volatile boolean cancelled;
+		private volatile Runnable canceller;
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.repository.ChangeFeed;
+
+import java.util.List;
+
+// >> 75. 변경 이벤트 api (외부 소비자는 마지막으로 받은 seq 를 after 로 넘겨서 이어 받는다)
+@RestController
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+	private static final int MAX_LIMIT = 1000;
+
+	private final ChangeFeed changeFeed;
+
+	@GetMapping("/v1/changes")
+	public List<ChangeEventDto> changes(@RequestParam(defaultValue = "0") long after,
+										@RequestParam(defaultValue = "100") int limit) {
+		return changeFeed.read(after, Math.min(Math.max(limit, 1), MAX_LIMIT));
+	}
+}
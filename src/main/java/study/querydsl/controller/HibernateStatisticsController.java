@@ -0,0 +1,62 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// >> 80. 하이버네이트 통계 조회 (관리용)
+// 쿼리 계획 캐시 miss 가 계속 늘어나면 plan_cache_max_size 가 동적 쿼리 조합 수보다 작은 것이다.
+// 초기화(clear)는 인증 없이 값을 지우는 요청이라 member.admin.statistics-clear-enabled=true 일 때만 받는다. (기본은 404)
+@RestController
+@RequiredArgsConstructor
+public class HibernateStatisticsController {
+
+	private final HibernateStatisticsInterceptor hibernateStatisticsInterceptor;
+
+	@Value("${member.admin.statistics-clear-enabled:false}")
+	private boolean clearEnabled;
+
+	@GetMapping("/admin/hibernate/statistics")
+	public Map<String, Object> statistics() {
+		Statistics statistics = hibernateStatisticsInterceptor.statistics();
+
+		Map<String, Object> global = new LinkedHashMap<>();
+		global.put("enabled", statistics.isStatisticsEnabled());
+		global.put("queryPlanCacheHits", statistics.getQueryPlanCacheHitCount());
+		global.put("queryPlanCacheMisses", statistics.getQueryPlanCacheMissCount());
+		global.put("queryExecutions", statistics.getQueryExecutionCount());
+		global.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+		global.put("queryExecutionMaxTimeQuery", statistics.getQueryExecutionMaxTimeQueryString());
+		global.put("prepareStatements", statistics.getPrepareStatementCount());
+		global.put("entityLoads", statistics.getEntityLoadCount());
+		global.put("entityFetches", statistics.getEntityFetchCount());
+		global.put("collectionFetches", statistics.getCollectionFetchCount());
+		global.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+		global.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+		global.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+		global.put("flushes", statistics.getFlushCount());
+		global.put("transactions", statistics.getTransactionCount());
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("global", global);
+		result.put("endpoints", hibernateStatisticsInterceptor.getEndpointStatistics());
+		return result;
+	}
+
+	@PostMapping("/admin/hibernate/statistics/clear")
+	public ResponseEntity<Void> clear() {
+		if (!clearEnabled) {
+			return ResponseEntity.notFound().build();
+		}
+		hibernateStatisticsInterceptor.statistics().clear();
+		hibernateStatisticsInterceptor.clear();
+		return ResponseEntity.ok().build();
+	}
+}
@@ -0,0 +1,131 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// >> 80. API 별 하이버네이트 통계
+// 요청마다 RequestStatistics 를 만들어 처리 스레드에 묶고, 세션 이벤트(RequestStatisticsListener)로 그 요청의 몫만 센다.
+// 동시에 처리 중인 다른 요청이나 스케줄 작업의 쿼리는 섞이지 않는다.
+// - 비동기 요청(DeferredResult)은 디스패치가 두 번 일어나니까 처음 만든 통계를 요청 속성에 두고 다시 묶는다.
+//   조회 스레드 풀로 넘어가는 작업은 RequestStatistics.propagate 로 감싼다. (CancellableQueryRunner, MemberBatchSearch)
+// - 합쳐진 조회(>> 66)는 처음 실행한 요청의 몫으로만 센다.
+// - 엔티티 로딩 수, 쿼리 계획 캐시는 세션 이벤트로 알 수 없어서 전역 통계(/admin/hibernate/statistics 의 global)로만 본다.
+@Component
+public class HibernateStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String STATISTICS_ATTRIBUTE = HibernateStatisticsInterceptor.class.getName() + ".statistics";
+
+	private final EntityManagerFactory emf;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+	public HibernateStatisticsInterceptor(EntityManagerFactory emf, MeterRegistry meterRegistry) {
+		this.emf = emf;
+		this.meterRegistry = meterRegistry;
+	}
+
+	// 지연 부트스트랩(>> 78)일 때 첫 요청 전에는 기다리지 않도록 필요할 때 꺼낸다.
+	Statistics statistics() {
+		return emf.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		RequestStatistics statistics = (RequestStatistics) request.getAttribute(STATISTICS_ATTRIBUTE);
+		if (statistics == null) {
+			statistics = new RequestStatistics();
+			request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+		}
+		RequestStatistics.bind(statistics);
+		return true;
+	}
+
+	// 비동기 처리로 넘어가면 요청 스레드는 다른 요청을 받으러 가니까 풀어준다.
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		RequestStatistics.unbind();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		RequestStatistics.unbind();
+		RequestStatistics statistics = (RequestStatistics) request.getAttribute(STATISTICS_ATTRIBUTE);
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (statistics == null || pattern == null) {
+			return;
+		}
+		endpoints.computeIfAbsent(pattern.toString(), this::register).record(statistics);
+	}
+
+	// API -> 누적 통계
+	public Map<String, Map<String, Long>> getEndpointStatistics() {
+		Map<String, Map<String, Long>> result = new TreeMap<>();
+		endpoints.forEach((endpoint, statistics) -> result.put(endpoint, statistics.toMap()));
+		return result;
+	}
+
+	public void clear() {
+		endpoints.values().forEach(EndpointStatistics::clear);
+	}
+
+	private EndpointStatistics register(String endpoint) {
+		return new EndpointStatistics(
+			DistributionSummary.builder("hibernate.endpoint.statements")
+				.description("요청 하나에서 실행된 JDBC statement 수")
+				.tag("endpoint", endpoint)
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry),
+			Timer.builder("hibernate.endpoint.jdbc.time")
+				.description("요청 하나에서 JDBC statement 실행에 쓴 시간")
+				.tag("endpoint", endpoint)
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry));
+	}
+
+	private static class EndpointStatistics {
+		final DistributionSummary statementsPerRequest;
+		final Timer jdbcTimePerRequest;
+
+		final LongAdder requests = new LongAdder();
+		final Map<String, LongAdder> totals = new ConcurrentHashMap<>();
+
+		EndpointStatistics(DistributionSummary statementsPerRequest, Timer jdbcTimePerRequest) {
+			this.statementsPerRequest = statementsPerRequest;
+			this.jdbcTimePerRequest = jdbcTimePerRequest;
+		}
+
+		void record(RequestStatistics statistics) {
+			requests.increment();
+			statistics.toMap().forEach((name, value) -> totals.computeIfAbsent(name, key -> new LongAdder()).add(value));
+			statementsPerRequest.record(statistics.getStatements());
+			jdbcTimePerRequest.record(statistics.getExecuteMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		void clear() {
+			requests.reset();
+			totals.values().forEach(LongAdder::reset);
+		}
+
+		Map<String, Long> toMap() {
+			Map<String, Long> map = new TreeMap<>();
+			map.put("requests", requests.sum());
+			totals.forEach((name, total) -> map.put(name, total.sum()));
+			return map;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberColumnarSnapshot;
+
+// >> 73. 분석용 조회 api (DB 대신 메모리 스냅샷에서 집계)
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.snapshot.enabled", havingValue = "true")
+public class MemberAnalyticsController {
+
+	private final MemberColumnarSnapshot memberColumnarSnapshot;
+
+	@GetMapping("/v1/members/analytics/age")
+	public MemberAgeStatsDto ageStats(MemberSearchCondition condition) {
+		return memberColumnarSnapshot.ageStats(condition);
+	}
+}
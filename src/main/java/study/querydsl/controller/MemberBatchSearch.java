@@ -0,0 +1,94 @@
+package study.querydsl.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// >> 83. 여러 조건을 한 번에 검색
+// 조건마다 /v1/members 와 같은 검색(건수 제한, 쿼리 타임아웃)을 읽기 전용 트랜잭션으로 병렬 실행한다.
+// - 같은 조건은 한 번만 실행하고 결과를 나눠 쓴다.
+// - 스레드 수와 대기열 크기가 정해진 풀을 쓴다. (커넥션 풀보다 작게) 대기열이 차면 RejectedExecutionException -> 503
+// - 조건 목록이 비었거나, 너무 많거나, null 이 섞여 있으면 IllegalArgumentException -> 400
+// - 전체가 timeout 안에 끝나지 않으면 남은 작업을 취소하고 QueryTimeoutException -> 503
+@Component
+public class MemberBatchSearch {
+
+	private final MemberJpaRepository memberJpaRepository;
+	private final TransactionTemplate readOnlyTransaction;
+	private final ThreadPoolExecutor executor;
+	private final int maxConditions;
+
+	public MemberBatchSearch(MemberJpaRepository memberJpaRepository,
+							 PlatformTransactionManager transactionManager,
+							 @Value("${member.batch-search.threads:4}") int threads,
+							 @Value("${member.batch-search.queue-size:100}") int queueSize,
+							 @Value("${member.batch-search.max-conditions:20}") int maxConditions) {
+		this.memberJpaRepository = memberJpaRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+		this.maxConditions = maxConditions;
+	}
+
+	public List<SearchResult<MemberTeamDto>> search(List<MemberSearchCondition> conditions, Duration timeout) {
+		if (conditions == null || conditions.isEmpty() || conditions.size() > maxConditions) {
+			throw new IllegalArgumentException("검색 조건은 1 ~ " + maxConditions + "개까지 보낼 수 있습니다.");
+		}
+		// [{...}, null] 처럼 빈 조건이 섞여 있으면 검색 전에 400 으로 돌려보낸다.
+		if (conditions.contains(null)) {
+			throw new IllegalArgumentException("검색 조건에 null 이 있습니다.");
+		}
+
+		Map<MemberSearchCondition, Future<SearchResult<MemberTeamDto>>> futures = new LinkedHashMap<>();
+		try {
+			for (MemberSearchCondition condition : conditions) {
+				futures.computeIfAbsent(condition, c -> executor.submit(RequestStatistics.propagate(() ->
+					readOnlyTransaction.execute(status -> memberJpaRepository.searchByWhereBounded(c, timeout)))));
+			}
+
+			long deadline = System.nanoTime() + timeout.toNanos();
+			List<SearchResult<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+			for (MemberSearchCondition condition : conditions) {
+				long remaining = Math.max(0, deadline - System.nanoTime());
+				results.add(futures.get(condition).get(remaining, TimeUnit.NANOSECONDS));
+			}
+			return results;
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("batch search timed out after " + timeout, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			futures.values().forEach(future -> future.cancel(true));	// 끝난 작업에는 영향 없음
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
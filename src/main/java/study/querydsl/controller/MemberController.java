@@ -1,23 +1,160 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import study.querydsl.dto.MemberChangesDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
 
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 // >> 53. 조회용 api 컨트롤러
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+	static final String TRUNCATED_HEADER = "X-Result-Truncated";
+
 	private final MemberJpaRepository memberJpaRepository;
+	private final MemberRepository memberRepository;
+	private final CancellableQueryRunner queryRunner;
+	private final MemberBatchSearch memberBatchSearch;
+	private final SearchHotKeys searchHotKeys;
+	private final MemberSearchCache memberSearchCache;
+
+	// >> 67. API 별 쿼리 타임아웃
+	@Value("${member.search.timeout.v1-members:3s}")
+	private Duration v1MembersTimeout;
+
+	@Value("${member.search.max-rows:1000}")
+	private int maxRows;
 
+	// >> 68. 최대 건수를 넘으면 앞부분만 내려주고
+	// X-Result-Truncated 헤더와 이어서 볼 수 있는 /v2/members 페이징 링크(Link: rel="next")를 붙인다.
 	@GetMapping("/v1/members")
-	public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-		return memberJpaRepository.searchByWhere(condition);
+	public DeferredResult<ResponseEntity<List<MemberTeamDto>>> searchMemberV1(MemberSearchCondition condition) {
+		// 비동기 스레드에서는 현재 요청 정보를 읽을 수 없으니 미리 만들어 둔다.
+		ServletUriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequest();
+		// >> 86. 정규화한 조건을 세고(hot key), 캐시에 있으면 조회 풀로 넘기지 않고 바로 응답한다.
+		MemberSearchCondition key = searchHotKeys.record(condition);
+		SearchResult<MemberTeamDto> cached = memberSearchCache.getIfPresent(key);
+		if (cached != null) {
+			DeferredResult<ResponseEntity<List<MemberTeamDto>>> result = new DeferredResult<>();
+			result.setResult(toResponse(nextPage, cached));
+			return result;
+		}
+
+		return queryRunner.run("/v1/members", v1MembersTimeout, key.toKey(),
+			() -> memberSearchCache.load(key, () -> memberJpaRepository.searchByWhereBounded(key, v1MembersTimeout)),
+			result -> toResponse(nextPage, result));
+	}
+
+	// >> 69. ?fields=memberId,username 처럼 필요한 필드만 내려준다.
+	@GetMapping(value = "/v1/members", params = "fields")
+	public DeferredResult<ResponseEntity<List<Map<String, Object>>>> searchMemberFieldsV1(MemberSearchCondition condition,
+																						   @RequestParam String fields) {
+		Set<MemberField> memberFields = MemberField.parse(fields);
+		ServletUriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequest();
+
+		return queryRunner.run("/v1/members", v1MembersTimeout, Arrays.asList(condition.toKey(), memberFields),
+			() -> memberRepository.searchFields(condition, memberFields),
+			result -> toResponse(nextPage, result));
+	}
+
+	// >> 83. 여러 조건을 한 번에 검색 (결과는 요청한 조건 순서대로)
+	@PostMapping("/v1/members/batch-search")
+	public List<SearchResult<MemberTeamDto>> batchSearch(@RequestBody List<MemberSearchCondition> conditions) {
+		return memberBatchSearch.search(conditions, v1MembersTimeout);
+	}
+
+	private static <T> ResponseEntity<List<T>> toResponse(ServletUriComponentsBuilder nextPage, SearchResult<T> result) {
+		if (!result.isTruncated()) {
+			return ResponseEntity.ok(result.getContent());
+		}
+		return ResponseEntity.ok()
+			.header(TRUNCATED_HEADER, "true")
+			.header(HttpHeaders.LINK, nextPageLink(nextPage, result))
+			.body(result.getContent());
+	}
+
+	private static String nextPageLink(ServletUriComponentsBuilder nextPage, SearchResult<?> result) {
+		String next = nextPage
+			.replacePath("/v2/members")
+			.replaceQueryParam("page", 1)
+			.replaceQueryParam("size", result.getLimit())
+			.toUriString();
+		return "<" + next + ">; rel=\"next\"";
+	}
+
+	// >> 76. 변경분 동기화
+	// 이어 받는 위치는 수정 시각(last_modified_date)이 아니라 변경 이벤트의 seq 다. (after = 응답으로 받은 next)
+	// 수정 시각은 flush 할 때 찍혀서 늦게 커밋된 트랜잭션의 변경이 이미 지나간 시각으로 들어올 수 있지만, seq 는 커밋 순서다.
+	// - since(ISO 시각, 예: 2026-10-19T10:00:00)를 주면 그 시각 이후에 커밋된 변경부터 돌려준다. 처음 한 번만 쓰고 그 뒤로는 next 를 after 로.
+	// - 둘 다 없이 부르면 지금 위치(next)만 돌려준다. 그 뒤 /v1/members 로 전체를 받고 next 부터 이어 받는다.
+	// 응답의 next 를 after 로 넘기면서 changes 가 빌 때까지 이어 받는다. (같은 변경이 다시 올 수 있으니 덮어쓰기로 반영)
+	// 보관 기간(member.change-feed.retention)이 지나 지워진 구간부터 이어 받으려고 하면 400 -> 전체를 다시 받는다.
+	@GetMapping("/v1/members/changes")
+	public MemberChangesDto changedMembers(@RequestParam(required = false) Long after,
+										   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+										   @RequestParam(defaultValue = "1000") int limit) {
+		int boundedLimit = Math.min(Math.max(limit, 1), maxRows);
+		if (since != null) {
+			if (after != null) {
+				throw new IllegalArgumentException("after 와 since 는 같이 보낼 수 없습니다.");
+			}
+			return memberRepository.findChangedSince(since, boundedLimit);
+		}
+		return memberRepository.findChangedAfter(after, boundedLimit);
+	}
+
+	// >> 68. 페이징 조회 (정렬: memberId, username, age, teamName)
+	@GetMapping("/v2/members")
+	public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+		return memberRepository.searchPageComplex(condition, pageable);
+	}
+
+	// >> 67. DB 쿼리 타임아웃 (취소된 statement 포함)
+	@ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+	public ResponseEntity<String> queryTimeout(HttpServletRequest request) {
+		queryRunner.recordTimeout(request.getRequestURI(), "query-timeout");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("조회 시간이 초과되었습니다.");
+	}
+
+	// >> 83. 일괄 검색 대기열이 가득 참
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> busy() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요.");
+	}
+
+	// >> 61. 허용되지 않은 정렬 조건
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(e.getMessage());
 	}
 }
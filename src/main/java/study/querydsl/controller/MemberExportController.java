@@ -0,0 +1,22 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.MemberExporter;
+
+import java.util.List;
+
+// >> 74. 내보내기 진행 상황 (관리용)
+// 마지막(또는 진행 중인) 내보내기의 구간별 member_id 범위, 쓴 행 수, 완료 / 취소 여부
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+	private final MemberExporter memberExporter;
+
+	@GetMapping("/admin/members/export/progress")
+	public List<MemberExporter.Partition> progress() {
+		return memberExporter.getProgress();
+	}
+}
@@ -0,0 +1,25 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.repository.MemberImporter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+// >> 77. CSV 대량 등록 api
+// 요청 본문을 그대로 스트림으로 넘긴다. (multipart 처럼 임시 파일이나 메모리에 먼저 받지 않음)
+// curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv localhost:8080/v1/members/import
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+
+	private final MemberImporter memberImporter;
+
+	@PostMapping(value = "/v1/members/import", consumes = "text/csv")
+	public MemberImportResult importMembers(HttpServletRequest request) throws IOException {
+		return memberImporter.importCsv(request.getInputStream());
+	}
+}
@@ -0,0 +1,251 @@
+package study.querydsl.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.repository.ChangeFeed;
+import study.querydsl.repository.ChangeFeedConsumer;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// >> 86. 자주 들어오는 조건의 /v1/members 결과 캐시
+// 상위 N 개(hot key, SearchHotKeys)의 결과만 ttl 동안 들고 있어서 캐시 메모리는 작고, 트래픽 대부분은 캐시에서 나간다.
+// - refresh-interval 마다 상위 N 개를 다시 뽑아서, 없거나 만료가 refresh-ahead 안으로 다가온 것은 미리 다시 조회해 둔다.
+//   (요청이 만료된 항목을 만나서 DB 로 가는 일이 거의 없다)
+// - 상위 N 에서 빠진 조건은 지운다. 요청 중에 캐시에 넣는 것도 상위 N 에 든 조건뿐이다.
+// - 미리 조회는 전용 스레드 풀에서 하고, 한 주기에 refresh-max-per-cycle 개까지만 보낸다. (스케줄러 스레드와 DB 를 붙잡지 않도록)
+// - 회원 / 팀 변경 이벤트(>> 75)가 오면 전부 비운다. 조회 중에 비워졌으면 그 결과는 넣지 않는다. (generation)
+//   그래도 이벤트가 전달되기까지(poll-interval) 는 예전 결과가 나갈 수 있다.
+// member.search-cache.enabled=true 일 때만 쓴다. (기본은 꺼짐)
+@Slf4j
+@Component
+public class MemberSearchCache implements ChangeFeedConsumer {
+
+	private final SearchHotKeys searchHotKeys;
+	private final MemberJpaRepository memberJpaRepository;
+	private final TransactionTemplate readOnlyTransaction;
+	private final ChangeFeed changeFeed;
+	private final ThreadPoolExecutor refreshExecutor;
+	private final Map<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+	private final Set<MemberSearchCondition> refreshing = ConcurrentHashMap.newKeySet();
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private volatile Set<MemberSearchCondition> hotKeys = Collections.emptySet();
+	private volatile Long startedAfter;	// 시작 시점의 마지막 변경 이벤트 seq
+
+	@Value("${member.search-cache.enabled:false}")
+	private boolean enabled;
+
+	@Value("${member.search-cache.ttl:10s}")
+	private Duration ttl;
+
+	@Value("${member.search-cache.refresh-ahead:3s}")
+	private Duration refreshAhead;
+
+	@Value("${member.search-cache.top-n:100}")
+	private int topN;
+
+	@Value("${member.search-cache.refresh-max-per-cycle:20}")
+	private int maxRefreshesPerCycle;
+
+	@Value("${member.search.timeout.v1-members:3s}")
+	private Duration timeout;
+
+	public MemberSearchCache(SearchHotKeys searchHotKeys,
+							 MemberJpaRepository memberJpaRepository,
+							 PlatformTransactionManager transactionManager,
+							 ChangeFeed changeFeed,
+							 @Value("${member.search-cache.refresh-threads:2}") int refreshThreads) {
+		this.searchHotKeys = searchHotKeys;
+		this.memberJpaRepository = memberJpaRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.changeFeed = changeFeed;
+		// 조건마다 한 번만 대기열에 들어가니(refreshing) top-n 개를 넘지 않는다.
+		this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<>());
+	}
+
+	// 캐시는 비어 있는 상태로 시작하니 이전 이벤트는 볼 필요가 없다.
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		startedAfter = changeFeed.lastSequence();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refreshExecutor.shutdownNow();
+	}
+
+	@Override
+	public String getName() {
+		return "memberSearchCache";
+	}
+
+	// 꺼져 있으면 null 이라 이벤트를 받지 않는다.
+	@Override
+	public Long startAfter() {
+		return enabled ? startedAfter : null;
+	}
+
+	@Override
+	public boolean isDurable() {
+		return false;
+	}
+
+	// 어떤 조건의 결과가 바뀌었는지는 따지지 않고 전부 비운다.
+	@Override
+	public void onChanges(List<ChangeEventDto> events) {
+		invalidateAll();
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	// key 는 SearchHotKeys.record 로 정규화한 조건
+	public SearchResult<MemberTeamDto> get(MemberSearchCondition key, Supplier<SearchResult<MemberTeamDto>> loader) {
+		SearchResult<MemberTeamDto> cached = getIfPresent(key);
+		return cached != null ? cached : load(key, loader);
+	}
+
+	// 캐시에 있으면 돌려주고 없으면 null. 요청 스레드에서 바로 불러서 hit 이면 조회 풀 / 트랜잭션 없이 응답한다.
+	public SearchResult<MemberTeamDto> getIfPresent(MemberSearchCondition key) {
+		if (!enabled) {
+			return null;
+		}
+		Entry entry = entries.get(key);
+		if (entry != null && System.nanoTime() < entry.expiresAt) {
+			hits.increment();
+			return entry.result;
+		}
+		misses.increment();
+		return null;
+	}
+
+	// getIfPresent 가 null 일 때 조회하고, 상위 N 에 든 조건이면 넣는다.
+	public SearchResult<MemberTeamDto> load(MemberSearchCondition key, Supplier<SearchResult<MemberTeamDto>> loader) {
+		long loadedAt = generation.get();
+		SearchResult<MemberTeamDto> result = loader.get();
+		if (enabled && hotKeys.contains(key)) {
+			put(key, result, loadedAt);
+		}
+		return result;
+	}
+
+	@Scheduled(fixedDelayString = "${member.search-cache.refresh-interval:1000}")
+	public void refresh() {
+		if (enabled) {
+			refreshHotKeys();
+		}
+	}
+
+	// 상위 N 을 다시 뽑고, 새로 조회할 조건을 자주 들어오는 순으로 최대 refresh-max-per-cycle 개 보낸다.
+	// 보낸 조회들이 모두 끝나면 완료되는 future 를 돌려준다.
+	CompletableFuture<Void> refreshHotKeys() {
+		List<MemberSearchCondition> ranked = searchHotKeys.top(topN).stream()
+			.map(SearchHotKeys.HotKey::getCondition)
+			.collect(Collectors.toList());
+		Set<MemberSearchCondition> hot = new HashSet<>(ranked);
+		hotKeys = hot;
+		entries.keySet().retainAll(hot);
+
+		List<CompletableFuture<Void>> submitted = new ArrayList<>();
+		for (MemberSearchCondition key : ranked) {
+			if (submitted.size() >= maxRefreshesPerCycle) {
+				break;
+			}
+			Entry entry = entries.get(key);
+			if (entry != null && entry.expiresAt - System.nanoTime() > refreshAhead.toNanos()) {
+				continue;
+			}
+			if (!refreshing.add(key)) {
+				continue;	// 이전 주기에 보낸 조회가 아직 안 끝남
+			}
+			submitted.add(CompletableFuture.runAsync(() -> load(key), refreshExecutor)
+				.whenComplete((result, error) -> refreshing.remove(key)));
+		}
+		return CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0]));
+	}
+
+	private void load(MemberSearchCondition key) {
+		long loadedAt = generation.get();
+		try {
+			SearchResult<MemberTeamDto> result = readOnlyTransaction.execute(status ->
+				memberJpaRepository.searchByWhereBounded(key, timeout));
+			put(key, result, loadedAt);
+			refreshes.increment();
+		} catch (RuntimeException e) {
+			// 기존 항목은 만료될 때까지 그대로 쓰고, 다음 주기에 다시 시도한다.
+			log.warn("search cache refresh failed. condition={}", key, e);
+		}
+	}
+
+	// 조회하는 동안 변경 이벤트로 비워졌으면 (generation 이 바뀜) 예전 결과일 수 있으니 넣지 않는다.
+	private void put(MemberSearchCondition key, SearchResult<MemberTeamDto> result, long loadedAt) {
+		entries.put(key, new Entry(result, System.nanoTime() + ttl.toNanos()));
+		if (generation.get() != loadedAt) {
+			entries.remove(key);
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getRefreshes() {
+		return refreshes.sum();
+	}
+
+	private static class Entry {
+
+		private final SearchResult<MemberTeamDto> result;
+		private final long expiresAt;
+
+		Entry(SearchResult<MemberTeamDto> result, long expiresAt) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.MemberSuggestIndex;
+
+import java.util.List;
+
+// >> 85. username 자동완성 api (DB 대신 메모리 색인에서 찾는다)
+// GET /v1/members/suggest?q=..&limit=.. (대소문자 무시, limit 은 최대 50)
+// - q 가 1 ~ 2 글자: username 이 q 로 시작하는 것만
+// - q 가 3 글자 이상: username 에 q 가 들어 있는 것 (앞부분이 일치하는 것이 먼저)
+// member.suggest.enabled=true 일 때만 열린다.
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.suggest.enabled", havingValue = "true")
+public class MemberSuggestController {
+
+	private final MemberSuggestIndex memberSuggestIndex;
+
+	@GetMapping("/v1/members/suggest")
+	public List<String> suggest(@RequestParam String q,
+								@RequestParam(defaultValue = "10") int limit) {
+		return memberSuggestIndex.suggest(q, Math.min(limit, MemberSuggestIndex.MAX_LIMIT));
+	}
+}
@@ -0,0 +1,97 @@
+package study.querydsl.controller;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// >> 80. 요청 하나의 하이버네이트 통계
+// 요청을 처리하는 스레드에 묶어 두고(bind), RequestStatisticsListener 가 그 스레드에서 일어난 일만 더한다.
+// 조회를 다른 스레드 풀에서 실행하면 propagate 로 감싸서 같은 통계를 넘겨준다.
+// 아무 요청에도 묶이지 않은 스레드(스케줄 작업, 캐시 갱신 등)의 쿼리는 어디에도 세지 않는다.
+public class RequestStatistics {
+
+	private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+	final LongAdder statements = new LongAdder();
+	final LongAdder executeNanos = new LongAdder();
+	final LongAdder batches = new LongAdder();
+	final LongAdder flushes = new LongAdder();
+	final LongAdder flushedEntities = new LongAdder();
+	final LongAdder secondLevelCacheHits = new LongAdder();
+	final LongAdder secondLevelCacheMisses = new LongAdder();
+
+	static RequestStatistics current() {
+		return CURRENT.get();
+	}
+
+	static void bind(RequestStatistics statistics) {
+		CURRENT.set(statistics);
+	}
+
+	static void unbind() {
+		CURRENT.remove();
+	}
+
+	// 지금 스레드의 통계를 task 를 실행하는 스레드에서도 쓰도록 감싼다.
+	public static Runnable propagate(Runnable task) {
+		RequestStatistics statistics = current();
+		if (statistics == null) {
+			return task;
+		}
+		return () -> {
+			RequestStatistics previous = current();
+			bind(statistics);
+			try {
+				task.run();
+			} finally {
+				restore(previous);
+			}
+		};
+	}
+
+	public static <T> Callable<T> propagate(Callable<T> task) {
+		RequestStatistics statistics = current();
+		if (statistics == null) {
+			return task;
+		}
+		return () -> {
+			RequestStatistics previous = current();
+			bind(statistics);
+			try {
+				return task.call();
+			} finally {
+				restore(previous);
+			}
+		};
+	}
+
+	private static void restore(RequestStatistics previous) {
+		if (previous == null) {
+			unbind();
+		} else {
+			bind(previous);
+		}
+	}
+
+	long getStatements() {
+		return statements.sum();
+	}
+
+	long getExecuteMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(executeNanos.sum());
+	}
+
+	Map<String, Long> toMap() {
+		Map<String, Long> map = new TreeMap<>();
+		map.put("statements", statements.sum());
+		map.put("executeMillis", getExecuteMillis());
+		map.put("batches", batches.sum());
+		map.put("flushes", flushes.sum());
+		map.put("flushedEntities", flushedEntities.sum());
+		map.put("secondLevelCacheHits", secondLevelCacheHits.sum());
+		map.put("secondLevelCacheMisses", secondLevelCacheMisses.sum());
+		return map;
+	}
+}
@@ -0,0 +1,67 @@
+package study.querydsl.controller;
+
+import org.hibernate.BaseSessionEventListener;
+
+// >> 80. 세션 이벤트를 지금 스레드에 묶인 요청 통계(RequestStatistics)에 더한다.
+// hibernate.session.events.auto 로 등록하면 하이버네이트가 세션마다 하나씩 만든다. (public 기본 생성자 필요)
+// 세션은 한 번에 한 스레드에서만 쓰니까 statement 시작 시각은 필드에 둬도 된다.
+public class RequestStatisticsListener extends BaseSessionEventListener {
+
+	private long executeStart = -1;
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.statements.increment();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		executeStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null && executeStart >= 0) {
+			statistics.executeNanos.add(System.nanoTime() - executeStart);
+		}
+		executeStart = -1;
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		executeStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.batches.increment();
+			if (executeStart >= 0) {
+				statistics.executeNanos.add(System.nanoTime() - executeStart);
+			}
+		}
+		executeStart = -1;
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.flushes.increment();
+			statistics.flushedEntities.add(numberOfEntities);
+		}
+	}
+
+	@Override
+	public void cacheGetEnd(boolean hit) {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			(hit ? statistics.secondLevelCacheHits : statistics.secondLevelCacheMisses).increment();
+		}
+	}
+}
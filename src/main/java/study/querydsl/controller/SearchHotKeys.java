@@ -0,0 +1,183 @@
+package study.querydsl.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// >> 86. 자주 들어오는 검색 조건(hot key) 추적
+// 조건을 정규화(빈 문자열은 null, 목록은 정렬 / 중복 제거, 대소문자 무시면 소문자)한 뒤 count-min sketch 로 횟수를 센다.
+// 정규화는 검색 결과가 바뀌지 않는 범위에서만 한다. (검색도 정규화한 조건으로 하니까)
+// - sketch: depth 개의 행마다 다른 해시로 칸을 골라 +1, 추정치는 그중 최솟값 (실제보다 작게 나오지는 않는다)
+//   고정 크기 AtomicLongArray 라 조건 종류가 많아져도 메모리가 늘지 않고, 요청 스레드는 락 없이 더하기만 한다.
+// - 요청 스레드는 조건을 고정 크기 버퍼(recent)의 해시 자리에 남기기만 한다. (CAS 한 번, 락 / 크기 계산 없음)
+//   자리에 다른 조건이 있으면 추정치가 같거나 클 때만 바꿔서 자주 들어오는 조건이 드문 조건에 밀려나지 않게 한다.
+// - 후보(candidates): 상위 N 을 뽑기 위해 조건 자체를 들고 있는 집합. 주기적으로(prune) 버퍼를 비우면서 후보에 넣고
+//   추정치 순으로 capacity 개만 남긴다. 그래서 새 조건은 다음 prune 부터 top 에 나온다.
+// - 주기적으로(decay) 모든 칸을 절반으로 줄여서 최근 트래픽이 더 크게 반영되게 한다.
+//   요청 스레드의 +1 과 겹치면 몇 번은 잃어버릴 수 있지만 근사치라 괜찮다.
+@Component
+public class SearchHotKeys {
+
+	private static final int DEPTH = 4;
+	private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+	private final AtomicLongArray counters;
+	private final int mask;
+	private final int capacity;
+	private final AtomicReferenceArray<MemberSearchCondition> recent;
+	private final LongAdder recorded = new LongAdder();
+	private volatile Set<MemberSearchCondition> candidates = Collections.emptySet();	// prune 에서만 바꾼다.
+
+	public SearchHotKeys(@Value("${member.hot-keys.width:4096}") int width,
+						 @Value("${member.hot-keys.capacity:256}") int capacity) {
+		int size = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;	// 2의 거듭제곱으로 올림
+		this.counters = new AtomicLongArray(DEPTH * size);
+		this.mask = size - 1;
+		this.capacity = capacity;
+		this.recent = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(capacity * 4, 16) - 1) << 1);
+	}
+
+	// 조건을 한 번 센다. 정규화한 조건을 돌려주니 캐시 키로 그대로 쓰면 된다.
+	public MemberSearchCondition record(MemberSearchCondition condition) {
+		MemberSearchCondition key = normalize(condition);
+		int hash = key.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++) {
+			estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash)));
+		}
+		recorded.increment();
+
+		int slot = (hash * SEEDS[0] >>> 16) & (recent.length() - 1);
+		MemberSearchCondition current = recent.get(slot);
+		if (current == null || (!current.equals(key) && estimate >= estimate(current))) {
+			recent.compareAndSet(slot, current, key);	// 실패하면 다른 요청이 방금 넣은 것이니 그대로 둔다.
+		}
+		return key;
+	}
+
+	public long estimate(MemberSearchCondition key) {
+		int hash = key.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++) {
+			estimate = Math.min(estimate, counters.get(index(row, hash)));
+		}
+		return estimate;
+	}
+
+	// 추정 횟수가 많은 순으로 n 개
+	public List<HotKey> top(int n) {
+		return candidates.stream()
+			.map(key -> new HotKey(key, estimate(key)))
+			.filter(hotKey -> hotKey.getEstimate() > 0)
+			.sorted(Comparator.comparingLong(HotKey::getEstimate).reversed())
+			.limit(n)
+			.collect(Collectors.toList());
+	}
+
+	public long getRecorded() {
+		return recorded.sum();
+	}
+
+	// 버퍼에 남은 조건을 후보에 넣고 추정치 순으로 capacity 개만 남긴다.
+	@Scheduled(fixedDelayString = "${member.hot-keys.prune-interval:5000}")
+	public synchronized void prune() {
+		Set<MemberSearchCondition> merged = new HashSet<>(candidates);
+		for (int i = 0; i < recent.length(); i++) {
+			MemberSearchCondition key = recent.getAndSet(i, null);
+			if (key != null) {
+				merged.add(key);
+			}
+		}
+		candidates = merged.stream()
+			.map(key -> new HotKey(key, estimate(key)))
+			.filter(hotKey -> hotKey.getEstimate() > 0)
+			.sorted(Comparator.comparingLong(HotKey::getEstimate).reversed())
+			.limit(capacity)
+			.map(HotKey::getCondition)
+			.collect(Collectors.toSet());
+	}
+
+	@Scheduled(fixedDelayString = "${member.hot-keys.decay-interval:60000}")
+	public void decay() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.getAndUpdate(i, count -> count >> 1);
+		}
+	}
+
+	private int index(int row, int hash) {
+		int h = hash * SEEDS[row];
+		h ^= h >>> 16;
+		return row * (mask + 1) + (h & mask);
+	}
+
+	// 같은 결과가 나오는 조건은 같은 키가 되도록 맞춘다.
+	static MemberSearchCondition normalize(MemberSearchCondition condition) {
+		boolean ignoreCase = condition.isIgnoreCase();
+		Function<String, String> username = value -> ignoreCase ? Member.normalizeUsername(value) : value;
+
+		MemberSearchCondition key = new MemberSearchCondition();
+		key.setUsername(mapText(condition.getUsername(), username));
+		key.setTeamName(mapText(condition.getTeamName(), Function.identity()));
+		key.setAgeGoe(condition.getAgeGoe());
+		key.setAgeLoe(condition.getAgeLoe());
+		key.setUsernamePrefix(mapText(condition.getUsernamePrefix(), username));
+		key.setUsernames(sorted(condition.getUsernames(), username));
+		key.setTeamNames(sorted(condition.getTeamNames(), Function.identity()));
+		key.setMemberIds(sorted(condition.getMemberIds(), Function.identity()));
+		// username 조건이 없으면 대소문자 무시 여부는 결과와 상관없다.
+		key.setIgnoreCase(ignoreCase
+			&& (key.getUsername() != null || key.getUsernamePrefix() != null || key.getUsernames() != null));
+		return key;
+	}
+
+	private static String mapText(String value, Function<String, String> mapper) {
+		return StringUtils.hasText(value) ? mapper.apply(value) : null;
+	}
+
+	private static <T extends Comparable<T>> List<T> sorted(List<T> values, Function<T, T> mapper) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		List<T> result = values.stream()
+			.filter(value -> value != null)
+			.map(mapper)
+			.distinct()
+			.sorted()
+			.collect(Collectors.toCollection(ArrayList::new));
+		return result.isEmpty() ? null : result;
+	}
+
+	public static class HotKey {
+
+		private final MemberSearchCondition condition;
+		private final long estimate;
+
+		HotKey(MemberSearchCondition condition, long estimate) {
+			this.condition = condition;
+			this.estimate = estimate;
+		}
+
+		public MemberSearchCondition getCondition() {
+			return condition;
+		}
+
+		public long getEstimate() {
+			return estimate;
+		}
+	}
+}
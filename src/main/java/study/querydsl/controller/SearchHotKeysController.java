@@ -0,0 +1,37 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// >> 86. 자주 들어오는 검색 조건 조회 (관리용)
+// estimate 는 count-min sketch 추정치라 실제 횟수보다 조금 클 수 있고, decay 때마다 절반으로 줄어든다.
+@RestController
+@RequiredArgsConstructor
+public class SearchHotKeysController {
+
+	private static final int MAX_LIMIT = 1000;
+
+	private final SearchHotKeys searchHotKeys;
+	private final MemberSearchCache memberSearchCache;
+
+	@GetMapping("/admin/search/hot-keys")
+	public Map<String, Object> hotKeys(@RequestParam(defaultValue = "20") int limit) {
+		Map<String, Object> cache = new LinkedHashMap<>();
+		cache.put("enabled", memberSearchCache.isEnabled());
+		cache.put("size", memberSearchCache.size());
+		cache.put("hits", memberSearchCache.getHits());
+		cache.put("misses", memberSearchCache.getMisses());
+		cache.put("refreshes", memberSearchCache.getRefreshes());
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("recorded", searchHotKeys.getRecorded());
+		result.put("cache", cache);
+		result.put("hotKeys", searchHotKeys.top(Math.min(Math.max(limit, 1), MAX_LIMIT)));
+		return result;
+	}
+}
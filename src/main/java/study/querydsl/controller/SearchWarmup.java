@@ -0,0 +1,123 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// >> 79. 시작 시 워밍업
+// 배포 직후 첫 요청들이 느린 이유: 하이버네이트 쿼리 계획 캐시, querydsl -> JPQL 변환, JSON 직렬화 코드가 아직 JIT 컴파일 전
+// ApplicationRunner 는 readiness(ACCEPTING_TRAFFIC) 전에 실행되니까, 여기서 대표 조건들로 검색 / 페이징을 미리 돌려둔다.
+// 모두 읽기 전용 트랜잭션이라 데이터는 바뀌지 않는다.
+// - 조건 없는 검색은 테이블 전체를 읽으니 워밍업에서 뺀다. (설정으로 넣어도 건너뜀)
+// - 전체 건수(count) 쿼리는 조인한 채로 테이블을 훑으니 돌리지 않는다. 페이징은 count 없는 slice 로만 데운다.
+// 조건별로 첫 회와 마지막 회 시간을 로그로 남겨서 워밍업이 충분했는지 확인한다. (마지막 회가 평소 응답 시간과 비슷하면 충분)
+@Slf4j
+@Component
+public class SearchWarmup implements ApplicationRunner {
+
+	private final WarmupProperties properties;
+	private final MemberJpaRepository memberJpaRepository;
+	private final MemberRepository memberRepository;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate readOnlyTransaction;
+
+	public SearchWarmup(WarmupProperties properties,
+						MemberJpaRepository memberJpaRepository,
+						MemberRepository memberRepository,
+						ObjectMapper objectMapper,
+						PlatformTransactionManager transactionManager) {
+		this.properties = properties;
+		this.memberJpaRepository = memberJpaRepository;
+		this.memberRepository = memberRepository;
+		this.objectMapper = objectMapper;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		long start = System.nanoTime();
+		for (MemberSearchCondition condition : conditions()) {
+			if (isUnfiltered(condition)) {
+				log.warn("warmup skipped unfiltered condition {}", condition);
+				continue;
+			}
+			long first = 0;
+			long last = 0;
+			for (int i = 0; i < properties.getIterations(); i++) {
+				long elapsed = runOnce(condition);
+				if (i == 0) {
+					first = elapsed;
+				}
+				last = elapsed;
+			}
+			log.info("warmup {} : first={}us, last={}us", condition, first / 1000, last / 1000);
+		}
+		log.info("warmup finished in {}ms", (System.nanoTime() - start) / 1_000_000);
+	}
+
+	// /v1/members, 정렬한 첫 페이지, keyset 페이징을 한 번씩 (페이징은 count 없이)
+	private long runOnce(MemberSearchCondition condition) {
+		long start = System.nanoTime();
+		readOnlyTransaction.executeWithoutResult(status -> {
+			serialize(memberJpaRepository.searchByWhereBounded(condition, null).getContent());
+			serialize(memberRepository.searchSliceAfter(condition, null, PageRequest.of(0, properties.getPageSize(), Sort.by("username"))).getContent());
+			serialize(memberRepository.searchSliceAfter(condition, null, PageRequest.of(0, properties.getPageSize())).getContent());
+		});
+		return System.nanoTime() - start;
+	}
+
+	private static boolean isUnfiltered(MemberSearchCondition condition) {
+		return SearchHotKeys.normalize(condition).equals(new MemberSearchCondition());
+	}
+
+	private void serialize(Object result) {
+		try {
+			objectMapper.writeValueAsBytes(result);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private List<MemberSearchCondition> conditions() {
+		if (!properties.getConditions().isEmpty()) {
+			return properties.getConditions();
+		}
+		// 이름, 팀, 나이 범위, 팀 + 나이 범위
+		List<MemberSearchCondition> conditions = new ArrayList<>();
+		MemberSearchCondition username = new MemberSearchCondition();
+		username.setUsername("member1");
+		conditions.add(username);
+
+		MemberSearchCondition teamName = new MemberSearchCondition();
+		teamName.setTeamName("teamA");
+		conditions.add(teamName);
+
+		MemberSearchCondition ageRange = new MemberSearchCondition();
+		ageRange.setAgeGoe(20);
+		ageRange.setAgeLoe(40);
+		conditions.add(ageRange);
+
+		MemberSearchCondition teamAndAge = new MemberSearchCondition();
+		teamAndAge.setTeamName("teamB");
+		teamAndAge.setAgeGoe(30);
+		conditions.add(teamAndAge);
+		return conditions;
+	}
+}
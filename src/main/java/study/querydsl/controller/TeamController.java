@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.List;
+
+// >> 72. 팀 통계 조회 api
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+	private final TeamStatsRepository teamStatsRepository;
+
+	@GetMapping("/v1/teams/stats")
+	public List<TeamStatsDto> teamStats() {
+		return teamStatsRepository.findAll();
+	}
+
+	@GetMapping("/v1/teams/{teamId}/stats")
+	public ResponseEntity<TeamStatsDto> teamStats(@PathVariable Long teamId) {
+		return ResponseEntity.of(teamStatsRepository.findByTeamId(teamId));
+	}
+}
@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// >> 79. 시작 시 워밍업 설정 (member.warmup.*)
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "member.warmup")
+public class WarmupProperties {
+
+	private boolean enabled = false;
+
+	// 조건마다 반복 횟수. 쿼리 계획 캐시는 한 번이면 채워지고, 나머지는 JIT 을 위한 것이라 많이 돌릴 필요는 없다.
+	// (반복마다 DB 에 검색 쿼리가 나가니 시작 시간과 DB 부하에 그대로 더해진다)
+	private int iterations = 20;
+
+	private int pageSize = 20;
+
+	// 실제 트래픽과 비슷한 조건들. 비어 있으면 기본 조합을 쓴다.
+	private List<MemberSearchCondition> conditions = new ArrayList<>();
+}
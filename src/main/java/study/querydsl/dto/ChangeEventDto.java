@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// >> 75. 변경 이벤트
+@Data
+@AllArgsConstructor
+public class ChangeEventDto {
+
+	public static final String MEMBER = "MEMBER";
+	public static final String TEAM = "TEAM";
+	public static final String INSERT = "INSERT";
+	public static final String UPDATE = "UPDATE";
+	public static final String DELETE = "DELETE";
+
+	private long seq;
+	private String entityType;
+	private Long entityId;
+	private String operation;
+	private String username;
+	private Integer age;
+	private Long teamId;
+	private String teamName;
+	private LocalDateTime createdAt;
+}
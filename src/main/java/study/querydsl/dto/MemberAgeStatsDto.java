@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// >> 73. 나이 집계 (count, sum, min, max, avg)
+@Data
+public class MemberAgeStatsDto {
+
+	private long count;
+	private long ageSum;
+	private Integer minAge;
+	private Integer maxAge;
+	private double averageAge;
+
+	public MemberAgeStatsDto(long count, long ageSum, Integer minAge, Integer maxAge) {
+		this.count = count;
+		this.ageSum = ageSum;
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+		this.averageAge = count == 0 ? 0 : (double) ageSum / count;
+	}
+}
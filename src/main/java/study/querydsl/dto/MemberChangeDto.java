@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// >> 76. 변경분 동기화 결과 한 건 (삭제된 회원은 deleted = true, 나머지 값은 삭제 직전 값)
+@Data
+@AllArgsConstructor
+public class MemberChangeDto {
+
+	private long seq;	// 이 변경을 만든 변경 이벤트의 seq
+	private Long memberId;
+	private String username;
+	private int age;
+	private Long teamId;
+	private String teamName;
+	private boolean deleted;
+}
@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// >> 76. 변경분 동기화 응답 (next 를 다음 요청의 after 로 넘긴다)
+// 회원과 상관없는 이벤트만 있었으면 changes 가 비어 있어도 next 는 앞으로 간다.
+@Data
+@AllArgsConstructor
+public class MemberChangesDto {
+
+	private List<MemberChangeDto> changes;
+	private long next;
+}
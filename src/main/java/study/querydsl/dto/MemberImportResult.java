@@ -0,0 +1,50 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// >> 77. 대량 등록 결과 (실패한 행은 rejects 에 최대 maxRejects 건까지 담는다)
+@Getter
+public class MemberImportResult {
+
+	private long imported;
+	private long rejected;
+	private final List<Reject> rejects = new ArrayList<>();
+	private final int maxRejects;
+
+	public MemberImportResult(int maxRejects) {
+		this.maxRejects = maxRejects;
+	}
+
+	public void imported(long count) {
+		imported += count;
+	}
+
+	public void reject(long lineNumber, String line, String reason) {
+		rejected++;
+		if (rejects.size() < maxRejects) {
+			rejects.add(new Reject(lineNumber, line, reason));
+		}
+	}
+
+	public List<Reject> getRejects() {
+		return Collections.unmodifiableList(rejects);
+	}
+
+	@Getter
+	public static class Reject {
+
+		private final long lineNumber;
+		private final String line;
+		private final String reason;
+
+		public Reject(long lineNumber, String line, String reason) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+			this.reason = reason;
+		}
+	}
+}
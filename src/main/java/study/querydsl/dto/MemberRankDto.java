@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// >> 71. 팀 안에서의 나이 순위
+@Data
+public class MemberRankDto {
+
+	private Long memberId;
+	private String username;
+	private int age;
+	private Long teamId;
+	private String teamName;
+	private long rank;
+
+	public MemberRankDto(Long memberId, String username, int age, Long teamId, String teamName, long rank) {
+		this.memberId = memberId;
+		this.username = username;
+		this.age = age;
+		this.teamId = teamId;
+		this.teamName = teamName;
+		this.rank = rank;
+	}
+}
@@ -2,6 +2,11 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 // >> 46. 회원명, 팀명, 나이(ageGoe, ageLoe)
 @Data
 public class MemberSearchCondition {
@@ -10,4 +15,27 @@ public class MemberSearchCondition {
 	private String teamName;
 	private Integer ageGoe;
 	private Integer ageLoe;
+
+	// >> 84. 앞부분 일치, 대소문자 무시 (username, usernames, usernamePrefix 에 적용)
+	private String usernamePrefix;
+	private boolean ignoreCase;
+
+	// >> 82. 여러 값 중 하나 (in). 단일 값 조건과 같이 주면 둘 다 만족해야 한다.
+	private List<String> usernames;
+	private List<String> teamNames;
+	private List<Long> memberIds;
+
+	// >> 66. 동시 요청 합치기(SingleFlight) key 로 쓰는 불변 사본
+	// 이 객체는 @Data 라 key 로 넣은 뒤 값이 바뀌면 equals / hashCode 가 달라져서 맵에서 못 찾는다.
+	// extra 에는 결과를 바꾸는 다른 값(예: 타임아웃)을 넣는다.
+	public List<Object> toKey(Object... extra) {
+		List<Object> key = new ArrayList<>(Arrays.asList(username, teamName, ageGoe, ageLoe, usernamePrefix, ignoreCase,
+			copyOf(usernames), copyOf(teamNames), copyOf(memberIds)));
+		key.addAll(Arrays.asList(extra));
+		return Collections.unmodifiableList(key);
+	}
+
+	private static <T> List<T> copyOf(List<T> values) {
+		return values != null ? Collections.unmodifiableList(new ArrayList<>(values)) : null;
+	}
 }
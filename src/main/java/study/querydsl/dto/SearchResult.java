@@ -0,0 +1,31 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+// >> 68. 조회 결과 + 잘림 여부
+// 최대 건수(limit)보다 많으면 limit 건까지만 담고 truncated = true
+// 같은 결과를 여러 요청이 같이 받으니(>> 66) content 는 수정할 수 없는 목록이다.
+@Getter
+public class SearchResult<T> {
+
+	private final List<T> content;
+	private final int limit;
+	private final boolean truncated;
+
+	private SearchResult(List<T> content, int limit, boolean truncated) {
+		this.content = content;
+		this.limit = limit;
+		this.truncated = truncated;
+	}
+
+	// limit + 1 건까지 조회한 결과를 넘겨준다.
+	public static <T> SearchResult<T> of(List<T> fetched, int limit) {
+		if (fetched.size() > limit) {
+			return new SearchResult<>(Collections.unmodifiableList(fetched.subList(0, limit)), limit, true);
+		}
+		return new SearchResult<>(Collections.unmodifiableList(fetched), limit, false);
+	}
+}
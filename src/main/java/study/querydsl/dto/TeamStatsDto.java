@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+// >> 72. 팀 통계 (avg, count, sum, max, min)
+@Data
+public class TeamStatsDto {
+
+	private Long teamId;
+	private String teamName;
+	private long memberCount;
+	private long ageSum;
+	private double averageAge;
+	private Integer minAge;
+	private Integer maxAge;
+
+	@QueryProjection
+	public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+		this.teamId = teamId;
+		this.teamName = teamName;
+		this.memberCount = memberCount;
+		this.ageSum = ageSum;
+		this.averageAge = memberCount == 0 ? 0 : (double) ageSum / memberCount;
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+	}
+}
@@ -0,0 +1,27 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.Column;
+import javax.persistence.EntityListeners;
+import javax.persistence.MappedSuperclass;
+import java.time.LocalDateTime;
+
+// >> 76. 생성/수정 시각 (스프링 데이터 JPA Auditing)
+// 변경 감지로 수정될 때만 자동으로 바뀐다. 벌크 연산은 직접 set 해줘야 한다. (>> 64 renameTeam 참고)
+@MappedSuperclass
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+public abstract class BaseEntity {
+
+	@CreatedDate
+	@Column(name = "created_date", updatable = false)
+	private LocalDateTime createdDate;
+
+	@LastModifiedDate
+	@Column(name = "last_modified_date")	// flush 시각이라 변경분 동기화 위치로는 쓰지 않는다. (change_event seq 를 쓴다)
+	private LocalDateTime lastModifiedDate;
+}
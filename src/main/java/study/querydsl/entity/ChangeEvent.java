@@ -0,0 +1,37 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// >> 75. 변경 이벤트 (outbox)
+// Member / Team 이 저장, 수정, 삭제될 때 같은 트랜잭션 안에서 한 줄씩 추가만 된다. (ChangeFeedEventListener)
+// seq 는 커밋 순서대로 빈 번호 없이 증가하는 값이라 소비하는 쪽은 마지막으로 읽은 seq 를 체크포인트로 저장해두고 이어서 읽는다.
+// seq 는 ChangeFeedEventListener 가 직접 매긴다. (IDENTITY 는 insert 순서라 커밋 순서와 다를 수 있다)
+@Entity
+@Table(indexes = @Index(name = "idx_change_event_created_at", columnList = "created_at"))	// >> 76. since 로 시작 위치 찾기, 보관 기간 정리
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChangeEvent {
+
+	@Id
+	private Long seq;
+	private String entityType;	// MEMBER, TEAM
+	private Long entityId;
+	private String operation;	// INSERT, UPDATE, DELETE
+	private String username;
+	private Integer age;
+	private Long teamId;
+	private String teamName;
+	private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+// >> 75. 소비자별로 마지막으로 처리한 seq
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ChangeFeedCheckpoint {
+
+	@Id
+	private String consumer;
+	private long lastSeq;
+}
@@ -3,29 +3,55 @@ package study.querydsl.entity;
 import lombok.*;
 
 import javax.persistence.*;
+import java.util.Locale;
 
 
 // >> 07. ToString 대상에는 연관관계 매핑한 것이 없어야 한다.
 // 만약 있으면 서로 들어가서 출력하기 때문에 무한루프 발생 가능
 @Entity
+// >> 61. 정렬/검색에 쓰는 컬럼은 인덱스를 건다.
+@Table(indexes = {
+	@Index(name = "idx_member_username", columnList = "username"),
+	@Index(name = "idx_member_username_lower", columnList = "username_lower"),	// >> 84. 대소문자 무시 / 앞부분 검색
+	@Index(name = "idx_member_age", columnList = "age"),
+	@Index(name = "idx_member_team_name", columnList = "team_name")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
-public class Member {
+public class Member extends BaseEntity {
 
+	// >> 77. 대량 등록 시 insert 마다 시퀀스를 조회하지 않도록 50개씩 미리 받아온다. (pooled)
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+	@SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
 	@Column(name = "member_id")
 	private Long id;
 	private String username;
 	private int age;
 
+	// >> 84. 소문자로 바꾼 username (대소문자 무시 검색용)
+	// lower(username) 으로 검색하면 인덱스를 못 쓰니까 바꾼 값을 따로 저장하고 인덱스를 건다.
+	// username 이 바뀔 때 같이 바뀐다. (벌크 연산으로 username 을 바꾸면 직접 맞춰줘야 함)
+	@Setter(AccessLevel.NONE)
+	@Column(name = "username_lower")
+	private String usernameLower;
 
+
+	// team 과 teamName 은 같이 바뀌어야 하니 setter 를 막고 changeTeam / assignTeam 으로만 바꾼다.
+	@Setter(AccessLevel.NONE)
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "team_id")
 	private Team team;
 
+	// >> 64. 팀 이름 역정규화
+	// 조회할 때마다 team 을 조인하지 않도록 member 에도 팀 이름을 들고 있는다.
+	// changeTeam, 팀 이름 변경(MemberRepositoryCustom.renameTeam) 시에 같이 맞춰준다.
+	@Setter(AccessLevel.NONE)
+	@Column(name = "team_name")
+	private String teamName;
+
 	// >> 08. this 생성자를 이용하여 입력 대상 이용
 	public Member(String username) {
 		this(username, 0);
@@ -36,16 +62,33 @@ public class Member {
 	}
 
 	public Member(String username, int age, Team team) {
-		this.username = username;
+		setUsername(username);
 		this.age = age;
 		if (team != null) {
 			changeTeam(team);
 		}
 	}
 
+	public void setUsername(String username) {
+		this.username = username;
+		this.usernameLower = normalizeUsername(username);
+	}
+
+	public static String normalizeUsername(String username) {
+		return username != null ? username.toLowerCase(Locale.ROOT) : null;
+	}
+
 	public void changeTeam(Team team) {
 		this.team = team;
+		this.teamName = team.getName();
 		team.getMembers().add(this);	// 리스트에 자신을 추가
 	}
 
+	// >> 77. 대량 등록용
+	// changeTeam 은 team.members 컬렉션을 초기화하니까 프록시(getReference)로 팀만 지정할 때 쓴다.
+	public void assignTeam(Team team, String teamName) {
+		this.team = team;
+		this.teamName = teamName;
+	}
+
 }
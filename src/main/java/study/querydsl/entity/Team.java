@@ -7,16 +7,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// >> 77. 팀 이름은 유일하다. (동시에 등록해도 같은 이름의 팀이 두 개 생기지 않게, 인덱스도 겸한다)
+// 이미 있는 DB 는 중복 팀을 정리한 뒤 제약을 추가해야 한다. (fast 프로필은 스키마를 만들지 않음)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_team_name", columnNames = "name"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
-public class Team {
+public class Team extends BaseEntity {
 
 	@Id
 	@GeneratedValue
 	@Column(name = "team_id")
 	private Long id;
+	// >> 64. 회원에 복사해 둔 팀 이름(member.team_name)도 같이 바뀌어야 하니 setter 를 막는다.
+	@Setter(AccessLevel.NONE)
 	private String name;
 
 	@OneToMany(mappedBy = "team")
@@ -33,5 +38,10 @@ public class Team {
 		this.name = name;
 	}
 
+	// 팀 이름만 바꾼다. member.team_name 까지 맞추는 MemberRepositoryCustom.renameTeam 에서 부른다.
+	public void rename(String name) {
+		this.name = name;
+	}
+
 
 }
@@ -0,0 +1,34 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+// >> 72. 팀 통계 읽기 모델
+// 회원 추가/수정/삭제/팀 변경 시 TeamStatsEventListener 가 같은 트랜잭션 안에서 증분으로 갱신한다.
+// 조회 전용이라 JPA 로는 수정하지 않는다. (@Immutable)
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+	@Id
+	@Column(name = "team_id")
+	private Long teamId;
+	private long memberCount;
+	private long ageSum;
+	private Integer minAge;
+	private Integer maxAge;
+
+	public double getAverageAge() {
+		return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+	}
+}
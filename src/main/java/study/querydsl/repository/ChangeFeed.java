@@ -0,0 +1,121 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.ChangeEventDto;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// >> 75. 변경 이벤트 읽기 + 체크포인트
+// seq 는 커밋 직전에 SEQUENCE 행을 잠그고 받아서 커밋 순서와 같다. (ChangeFeedEventListener)
+// 그래서 어떤 seq 가 보이면 그보다 작은 seq 는 모두 이미 커밋되어 있고, 롤백되면 seq 도 같이 돌아가서 빈 번호가 없다.
+// 읽는 쪽은 마지막으로 읽은 seq 다음부터 읽기만 하면 건너뛰는 이벤트가 없다.
+@Repository
+public class ChangeFeed {
+
+	private static final RowMapper<ChangeEventDto> CHANGE_EVENT_ROW_MAPPER = (rs, rowNum) -> {
+		long entityId = rs.getLong("entity_id");
+		Long id = rs.wasNull() ? null : entityId;
+		int age = rs.getInt("age");
+		Integer nullableAge = rs.wasNull() ? null : age;
+		long teamId = rs.getLong("team_id");
+		Long nullableTeamId = rs.wasNull() ? null : teamId;
+		return new ChangeEventDto(
+			rs.getLong("seq"),
+			rs.getString("entity_type"),
+			id,
+			rs.getString("operation"),
+			rs.getString("username"),
+			nullableAge,
+			nullableTeamId,
+			rs.getString("team_name"),
+			rs.getTimestamp("created_at").toLocalDateTime());
+	};
+
+	// 체크포인트 테이블에 같이 두는 값 (소비자 이름과 겹치지 않게 # 로 시작)
+	static final String SEQUENCE = "#sequence";	// 마지막으로 준 seq
+	private static final String PURGED = "#purged";	// 지운 위치
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ChangeFeed(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// afterSeq 다음부터 최대 limit 건
+	public List<ChangeEventDto> read(long afterSeq, int limit) {
+		return jdbcTemplate.query(
+			"select seq, entity_type, entity_id, operation, username, age, team_id, team_name, created_at" +
+				" from change_event" +
+				" where seq > ?" +
+				" order by seq" +
+				" limit ?",
+			CHANGE_EVENT_ROW_MAPPER, afterSeq, limit);
+	}
+
+	// since 이후에 기록된 첫 이벤트 바로 앞의 seq (since 이후 이벤트가 없으면 마지막 seq)
+	// created_at 은 seq 를 받은 뒤(커밋 직전)에 찍어서 seq 순서와 같이 증가한다. (ChangeFeedEventListener)
+	// 지운 구간(purge)에 since 이후 이벤트가 있었는지 알 수 없으면 null
+	public Long sequenceBefore(LocalDateTime since) {
+		if (purgedUpTo() > 0) {
+			Timestamp oldest = jdbcTemplate.queryForObject("select min(created_at) from change_event", Timestamp.class);
+			if (oldest == null || since.isBefore(oldest.toLocalDateTime())) {
+				return null;
+			}
+		}
+		Long first = jdbcTemplate.queryForObject(
+			"select min(seq) from change_event where created_at >= ?", Long.class, Timestamp.valueOf(since));
+		return first != null ? first - 1 : lastSequence();
+	}
+
+	// 지금까지 기록된 마지막 seq (없으면 0)
+	public long lastSequence() {
+		Long seq = jdbcTemplate.queryForObject("select max(seq) from change_event", Long.class);
+		return seq != null ? seq : 0;
+	}
+
+	// seq 가 maxSeq 이하이고 before 보다 먼저 기록된 이벤트를 지운다. (seq 를 batchSize 범위씩 나눠서)
+	// 한 번에 지우면 트랜잭션 하나가 너무 커지고 그동안 change_event 에 기록하는 트랜잭션이 밀린다.
+	// delete ... limit 은 DB 마다 지원이 달라서 seq 범위로 나눈다. (seq 는 빈 번호 없이 이어져서 범위 하나가 batchSize 건이다)
+	// 지운 마지막 seq 는 체크포인트 테이블에 남겨서, 그 앞부터 이어 받으려는 쪽이 빠진 변경이 있다는 걸 알 수 있게 한다.
+	public long purge(long maxSeq, LocalDateTime before, int batchSize) {
+		Long purgeUpTo = jdbcTemplate.queryForObject(
+			"select max(seq) from change_event where seq <= ? and created_at < ?",
+			Long.class, maxSeq, Timestamp.valueOf(before));
+		if (purgeUpTo == null) {
+			return 0;
+		}
+		saveCheckpoint(PURGED, Math.max(purgeUpTo, purgedUpTo()));
+		Long from = jdbcTemplate.queryForObject("select min(seq) from change_event", Long.class);
+		long deleted = 0;
+		for (long low = from != null ? from : purgeUpTo + 1; low <= purgeUpTo; low += batchSize) {
+			deleted += jdbcTemplate.update(
+				"delete from change_event where seq >= ? and seq < ? and seq <= ? and created_at < ?",
+				low, low + batchSize, purgeUpTo, Timestamp.valueOf(before));
+		}
+		return deleted;
+	}
+
+	// 이 seq 까지는 지워졌을 수 있다. (지운 적이 없으면 0)
+	public long purgedUpTo() {
+		return loadCheckpoint(PURGED);
+	}
+
+	public long loadCheckpoint(String consumer) {
+		List<Long> seq = jdbcTemplate.queryForList(
+			"select last_seq from change_feed_checkpoint where consumer = ?", Long.class, consumer);
+		return seq.isEmpty() ? 0 : seq.get(0);
+	}
+
+	public void saveCheckpoint(String consumer, long lastSeq) {
+		int updated = jdbcTemplate.update(
+			"update change_feed_checkpoint set last_seq = ? where consumer = ?", lastSeq, consumer);
+		if (updated == 0) {
+			jdbcTemplate.update(
+				"insert into change_feed_checkpoint (consumer, last_seq) values (?, ?)", consumer, lastSeq);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.ChangeEventDto;
+
+import java.util.List;
+
+// >> 75. 변경 이벤트 소비자 (빈으로 등록하면 ChangeFeedPoller 가 이어서 전달해준다)
+// 같은 이벤트가 다시 올 수 있으니(at-least-once) 여러 번 반영해도 결과가 같게 처리해야 한다.
+public interface ChangeFeedConsumer {
+
+	String getName();
+
+	void onChanges(List<ChangeEventDto> events);
+
+	// 시작 위치. null 이면 저장된 체크포인트부터 (메모리에만 있는 소비자는 직접 정한다)
+	default Long startAfter() {
+		return null;
+	}
+
+	// 체크포인트를 DB 에 저장할지
+	default boolean isDurable() {
+		return true;
+	}
+}
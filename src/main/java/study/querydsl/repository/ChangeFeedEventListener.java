@@ -0,0 +1,214 @@
+package study.querydsl.repository;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.dto.ChangeEventDto.*;
+
+// >> 75. 변경 이벤트 기록 (outbox)
+// Member / Team 의 insert, update, delete 이벤트를 모아두었다가
+// 커밋 직전에 같은 커넥션으로 change_event 에 JDBC 배치 insert 한 번으로 기록한다. (트랜잭션마다 왕복 1회)
+// 엔티티와 같은 트랜잭션이라 롤백되면 이벤트도 같이 사라진다.
+// seq 는 IDENTITY 가 아니라 체크포인트 테이블의 SEQUENCE 행을 올려서 받는다. 그 행은 커밋할 때까지 잠겨 있어서
+// 다음 트랜잭션은 앞 트랜잭션이 커밋(또는 롤백)한 뒤에야 seq 를 받는다. -> seq 순서 = 커밋 순서, 빈 번호 없음
+// 대신 회원 / 팀을 쓰는 트랜잭션은 커밋 직전 구간이 한 줄로 선다. (행 잠금을 잡은 채 기다리지 않도록 가장 마지막 단계에서 받는다)
+// TeamStatsEventListener 보다 먼저 등록되어(@DependsOn) 잠그는 순서가 항상 SEQUENCE -> team_stats 라 서로 막히지 않는다.
+// 주의: 벌크 연산(>> 37 ~ 39)은 이벤트가 발생하지 않아서 기록되지 않는다.
+@Component
+public class ChangeFeedEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private static final String INSERT_SQL = "insert into change_event" +
+		" (seq, entity_type, entity_id, operation, username, age, team_id, team_name, created_at)" +
+		" values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final EntityManagerFactory emf;
+	private final Map<SharedSessionContractImplementor, EventBatch> batches = new ConcurrentHashMap<>();
+
+	public ChangeFeedEventListener(EntityManagerFactory emf) {
+		this.emf = emf;
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		record(event.getSession(), event.getEntity(), event.getPersister(), event.getState(), INSERT);
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		record(event.getSession(), event.getEntity(), event.getPersister(), event.getState(), UPDATE);
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		record(event.getSession(), event.getEntity(), event.getPersister(), event.getDeletedState(), DELETE);
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private void record(EventSource session, Object entity, EntityPersister persister, Object[] state, String operation) {
+		if (entity instanceof Member) {
+			Member member = (Member) entity;
+			Team team = (Team) state[persister.getEntityMetamodel().getPropertyIndex("team")];
+			batch(session).add(new Object[]{
+				MEMBER,
+				member.getId(),
+				operation,
+				state[persister.getEntityMetamodel().getPropertyIndex("username")],
+				state[persister.getEntityMetamodel().getPropertyIndex("age")],
+				team != null ? team.getId() : null,
+				state[persister.getEntityMetamodel().getPropertyIndex("teamName")]});
+		} else if (entity instanceof Team) {
+			Team team = (Team) entity;
+			batch(session).add(new Object[]{
+				TEAM,
+				team.getId(),
+				operation,
+				null,
+				null,
+				team.getId(),
+				state[persister.getEntityMetamodel().getPropertyIndex("name")]});
+		}
+	}
+
+	private EventBatch batch(EventSource session) {
+		return batches.computeIfAbsent(session, s -> {
+			EventBatch batch = new EventBatch();
+			session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) batch);
+			session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) batch);
+			return batch;
+		});
+	}
+
+	private class EventBatch implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+		private final List<Object[]> rows = new ArrayList<>();
+
+		void add(Object[] row) {
+			rows.add(row);
+		}
+
+		@Override
+		public void doBeforeTransactionCompletion(SessionImplementor session) {
+			if (!rows.isEmpty()) {
+				session.doWork(this::insert);
+			}
+		}
+
+		@Override
+		public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+			batches.remove(session);
+		}
+
+		private void insert(Connection connection) throws SQLException {
+			long seq = allocate(connection, rows.size());
+			// 커밋 시점에 가까운 시각 (DB 의 current_timestamp 는 트랜잭션 시작 시각일 수 있다)
+			Timestamp now = new Timestamp(System.currentTimeMillis());
+			try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+				for (Object[] row : rows) {
+					insert.setLong(1, seq++);
+					insert.setString(2, (String) row[0]);
+					insert.setLong(3, (Long) row[1]);
+					insert.setString(4, (String) row[2]);
+					insert.setString(5, (String) row[3]);
+					if (row[4] == null) {
+						insert.setNull(6, Types.INTEGER);
+					} else {
+						insert.setInt(6, (Integer) row[4]);
+					}
+					if (row[5] == null) {
+						insert.setNull(7, Types.BIGINT);
+					} else {
+						insert.setLong(7, (Long) row[5]);
+					}
+					insert.setString(8, (String) row[6]);
+					insert.setTimestamp(9, now);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		}
+
+		// SEQUENCE 를 count 만큼 올리고 첫 seq 를 돌려준다. (올린 행은 커밋할 때까지 잠긴다)
+		private long allocate(Connection connection, int count) throws SQLException {
+			try (PreparedStatement update = connection.prepareStatement(
+				"update change_feed_checkpoint set last_seq = last_seq + ? where consumer = ?");
+				 PreparedStatement select = connection.prepareStatement(
+					 "select last_seq from change_feed_checkpoint where consumer = ?")) {
+				update.setLong(1, count);
+				update.setString(2, ChangeFeed.SEQUENCE);
+				if (update.executeUpdate() == 0) {
+					createSequence(connection);
+					update.executeUpdate();
+				}
+				select.setString(1, ChangeFeed.SEQUENCE);
+				try (ResultSet rs = select.executeQuery()) {
+					rs.next();
+					return rs.getLong(1) - count + 1;
+				}
+			}
+		}
+
+		// 처음 한 번: 이미 기록된 이벤트의 마지막 seq 에서 시작한다.
+		// 다른 트랜잭션이 먼저 만들었으면 (기본 키 중복) 그 행을 쓴다. 실패한 insert 만 되돌리도록 savepoint 를 잡는다.
+		private void createSequence(Connection connection) throws SQLException {
+			Savepoint savepoint = connection.setSavepoint();
+			try (PreparedStatement insert = connection.prepareStatement(
+				"insert into change_feed_checkpoint (consumer, last_seq)" +
+					" select ?, coalesce(max(seq), 0) from change_event")) {
+				insert.setString(1, ChangeFeed.SEQUENCE);
+				insert.executeUpdate();
+			} catch (SQLException e) {
+				if (!(e instanceof SQLIntegrityConstraintViolationException) && !"23505".equals(e.getSQLState())) {
+					throw e;
+				}
+				connection.rollback(savepoint);
+			} finally {
+				connection.releaseSavepoint(savepoint);
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.ChangeEventDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// >> 75. 변경 이벤트를 주기적으로 읽어서 소비자들에게 전달
+// 소비자마다 체크포인트를 따로 들고 있고, 처리에 성공한 뒤에만 앞으로 옮긴다.
+// 모든 소비자가 읽었고 보관 기간(retention)이 지난 이벤트는 주기적으로 지운다.
+@Slf4j
+@Component
+public class ChangeFeedPoller {
+
+	private final ChangeFeed changeFeed;
+	private final List<ChangeFeedConsumer> consumers;
+	private final Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+
+	@Value("${member.change-feed.batch-size:500}")
+	private int batchSize;
+
+	@Value("${member.change-feed.retention:7d}")
+	private Duration retention;
+
+	public ChangeFeedPoller(ChangeFeed changeFeed, List<ChangeFeedConsumer> consumers) {
+		this.changeFeed = changeFeed;
+		this.consumers = consumers;
+	}
+
+	@Scheduled(fixedDelayString = "${member.change-feed.poll-interval:1000}")
+	public void poll() {
+		for (ChangeFeedConsumer consumer : consumers) {
+			try {
+				poll(consumer);
+			} catch (RuntimeException e) {
+				log.warn("change feed consumer {} failed. checkpoint={}", consumer.getName(), checkpoints.get(consumer.getName()), e);
+			}
+		}
+	}
+
+	// 보관 기간이 지났고 모든 소비자가 이미 읽은 이벤트만 지운다.
+	// - 메모리에만 있는 소비자는 아직 준비 전이면 건너뛴다. (rebuild 하면 그 시점부터 읽으니까)
+	// - 저장된 체크포인트가 없는 소비자가 있으면 처음부터 읽어야 하니 지우지 않는다.
+	@Scheduled(fixedDelayString = "${member.change-feed.purge-interval:3600000}")
+	public void purge() {
+		long minCheckpoint = Long.MAX_VALUE;
+		for (ChangeFeedConsumer consumer : consumers) {
+			Long checkpoint = checkpoints.get(consumer.getName());
+			if (checkpoint == null && consumer.isDurable()) {
+				checkpoint = changeFeed.loadCheckpoint(consumer.getName());
+			}
+			if (checkpoint != null) {
+				minCheckpoint = Math.min(minCheckpoint, checkpoint);
+			}
+		}
+		if (minCheckpoint == Long.MAX_VALUE) {
+			minCheckpoint = changeFeed.lastSequence();	// 소비자가 없음
+		}
+		long deleted = changeFeed.purge(minCheckpoint, LocalDateTime.now().minus(retention), batchSize);
+		if (deleted > 0) {
+			log.info("change feed purged. deleted={}, upToSeq={}", deleted, minCheckpoint);
+		}
+	}
+
+	private void poll(ChangeFeedConsumer consumer) {
+		Long startAfter = consumer.startAfter();
+		if (startAfter == null && !consumer.isDurable()) {
+			return;	// 아직 준비되지 않았음 (예: 스냅샷 rebuild 전)
+		}
+		long checkpoint = checkpoints.computeIfAbsent(consumer.getName(), name ->
+			startAfter != null ? startAfter : changeFeed.loadCheckpoint(name));
+		if (startAfter != null && startAfter > checkpoint) {
+			checkpoint = startAfter;	// 소비자가 다시 읽어서(rebuild) 그 앞은 이미 반영됨
+		}
+
+		List<ChangeEventDto> events;
+		do {
+			events = changeFeed.read(checkpoint, batchSize);
+			if (events.isEmpty()) {
+				return;
+			}
+			consumer.onChanges(events);
+			checkpoint = events.get(events.size() - 1).getSeq();
+			checkpoints.put(consumer.getName(), checkpoint);
+			if (consumer.isDurable()) {
+				changeFeed.saveCheckpoint(consumer.getName(), checkpoint);
+			}
+		} while (events.size() == batchSize);
+	}
+}
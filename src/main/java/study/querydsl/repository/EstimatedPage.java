@@ -0,0 +1,32 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// >> 63. total count 가 정확한 값인지 추정치인지 함께 넘겨준다.
+// totalType 이 ESTIMATE 면 화면에서는 "약 N건", AT_LEAST 면 "N건 이상" 으로 보여주면 된다.
+public class EstimatedPage<T> extends PageImpl<T> {
+
+	public enum TotalType {
+		EXACT,		// 정확한 건수
+		ESTIMATE,	// 조건을 반영한 추정치
+		AT_LEAST	// 추정할 수 없어서 이만큼 이상이라는 것만 안다. (마지막 페이지 번호는 의미 없음)
+	}
+
+	private final TotalType totalType;
+
+	public EstimatedPage(List<T> content, Pageable pageable, long total, TotalType totalType) {
+		super(content, pageable, total);
+		this.totalType = totalType;
+	}
+
+	public TotalType getTotalType() {
+		return totalType;
+	}
+
+	public boolean isExactTotal() {
+		return totalType == TotalType.EXACT;
+	}
+}
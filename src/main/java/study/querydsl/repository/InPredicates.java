@@ -0,0 +1,55 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.SimpleExpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// >> 82. in 절 조건 (여러 값 검색)
+// - null 과 중복은 빼고, 값이 없으면 조건 자체를 넣지 않는다. (usernameEq 등과 같은 규칙)
+// - CHUNK_SIZE 보다 많으면 (a in (...) or a in (...)) 로 나눈다. (DB 별 in 절 하나의 값 개수 제한)
+//   나눠도 모든 값이 바인드 파라미터로 들어가니 문장 전체의 파라미터 수 제한(예: SQL Server 2100, PostgreSQL 32767)은 그대로다.
+//   값이 그보다 많아질 수 있으면 임시 테이블에 넣고 조인해야 한다. 지금은 요청 하나에 그만큼 넘기는 경우가 없어서 나누기만 한다.
+// - hibernate.query.in_clause_parameter_padding 으로 파라미터 수가 2의 거듭제곱으로 맞춰지니까
+//   값 개수가 달라도 쿼리 계획 캐시(>> 80)에는 몇 개의 모양만 남는다. chunk 크기도 그래서 512 로 둔다.
+final class InPredicates {
+
+	static final int CHUNK_SIZE = 512;
+
+	private InPredicates() {
+	}
+
+	static <T> BooleanExpression in(SimpleExpression<T> path, Collection<? extends T> values) {
+		BooleanExpression result = null;
+		for (List<T> chunk : chunks(values)) {
+			BooleanExpression in = path.in(chunk);
+			result = result == null ? in : result.or(in);
+		}
+		return result;
+	}
+
+	static <T> List<T> distinct(Collection<? extends T> values) {
+		if (values == null || values.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return values.stream()
+			.filter(Objects::nonNull)
+			.collect(Collectors.toCollection(LinkedHashSet::new))
+			.stream()
+			.collect(Collectors.toList());
+	}
+
+	private static <T> List<List<T>> chunks(Collection<? extends T> values) {
+		List<T> distinct = distinct(values);
+		List<List<T>> chunks = new ArrayList<>();
+		for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+			chunks.add(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())));
+		}
+		return chunks;
+	}
+}
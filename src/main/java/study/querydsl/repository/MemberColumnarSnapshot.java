@@ -0,0 +1,413 @@
+package study.querydsl.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// >> 73. 회원 테이블 컬럼형 스냅샷 (분석용)
+// 테이블 대부분을 훑는 집계 요청을 DB(OLTP) 대신 메모리에서 처리한다.
+// 엔티티 대신 컬럼별 primitive 배열로 들고 있어서 메모리가 작고, 조건 검사는 배열을 순서대로 도는 단순 루프다.
+// - username 은 사전(dictionary) 인코딩해서 int 코드로 비교
+// - team 은 0부터 시작하는 순번(ordinal)으로 바꿔서 저장 (팀 없음 = NONE)
+//   팀 이름은 유일하지 않으니 이름 -> 순번 집합(BitSet)으로 찾는다.
+// - 삭제는 행을 지우지 않고 표시만 해둔다. 지워진 행과 더 이상 쓰지 않는 사전 항목은 주기적으로(compact) 정리한다.
+// member.snapshot.enabled=true 일 때만 만들어지며, 시작 시 한 번 전체를 읽고 이후는 변경 이벤트(>> 75)로 증분 반영한다.
+@Component
+@ConditionalOnProperty(name = "member.snapshot.enabled", havingValue = "true")
+public class MemberColumnarSnapshot implements ChangeFeedConsumer {
+
+	private static final int NONE = -1;	// 팀 없음, username 없음
+	private static final int NO_MATCH = -2;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ChangeFeed changeFeed;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private long[] ids = new long[0];
+	private int[] ages = new int[0];
+	private int[] teamOrdinals = new int[0];
+	private int[] usernameCodes = new int[0];
+	private boolean[] deleted = new boolean[0];
+	private int size;
+	private int deletedCount;
+	private volatile Long rebuiltAfter;	// rebuild 직전의 마지막 변경 이벤트 seq
+	private boolean modified;	// 마지막 compact 이후 변경이 있었는지
+
+	private final Map<Long, Integer> rowById = new HashMap<>();
+	private final List<String> usernames = new ArrayList<>();
+	private final Map<String, Integer> usernameCodeByName = new HashMap<>();
+	private final Map<Long, Integer> teamOrdinalById = new HashMap<>();
+	private final Map<String, BitSet> teamOrdinalsByName = new HashMap<>();
+	private final List<String> teamNames = new ArrayList<>();
+
+	public MemberColumnarSnapshot(DataSource dataSource, ChangeFeed changeFeed) {
+		// 전체를 스트리밍으로 읽기 위해 fetch size 를 따로 준 JdbcTemplate 을 쓴다.
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+		this.changeFeed = changeFeed;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			// 읽는 도중에 커밋된 변경은 이벤트로 한 번 더 들어오지만 upsert / delete 라 다시 반영해도 같다.
+			long lastSeq = changeFeed.lastSequence();
+			clear();
+			jdbcTemplate.query(
+				"select m.member_id, m.username, m.age, t.team_id, t.name" +
+					" from member m left join team t on m.team_id = t.team_id",
+				rs -> {
+					long teamId = rs.getLong(4);
+					append(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.wasNull() ? null : teamId, rs.getString(5));
+				});
+			rebuiltAfter = lastSeq;
+			modified = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "memberColumnarSnapshot";
+	}
+
+	// 메모리에만 있으니 체크포인트는 저장하지 않고, rebuild 시점부터 이어 받는다. (rebuild 전이면 null)
+	@Override
+	public Long startAfter() {
+		return rebuiltAfter;
+	}
+
+	@Override
+	public boolean isDurable() {
+		return false;
+	}
+
+	@Override
+	public void onChanges(List<ChangeEventDto> events) {
+		for (ChangeEventDto event : events) {
+			if (ChangeEventDto.MEMBER.equals(event.getEntityType())) {
+				if (ChangeEventDto.DELETE.equals(event.getOperation())) {
+					delete(event.getEntityId());
+				} else {
+					upsert(event.getEntityId(), event.getUsername(), event.getAge(), event.getTeamId(), event.getTeamName());
+				}
+			} else if (ChangeEventDto.TEAM.equals(event.getEntityType())
+				&& ChangeEventDto.UPDATE.equals(event.getOperation())) {
+				renameTeam(event.getEntityId(), event.getTeamName());
+			}
+		}
+	}
+
+	// 추가 또는 수정
+	public void upsert(long memberId, String username, int age, Long teamId, String teamName) {
+		lock.writeLock().lock();
+		try {
+			Integer row = rowById.get(memberId);
+			if (row == null) {
+				append(memberId, username, age, teamId, teamName);
+				return;
+			}
+			ages[row] = age;
+			usernameCodes[row] = usernameCode(username);
+			teamOrdinals[row] = teamOrdinal(teamId, teamName);
+			modified = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void delete(long memberId) {
+		lock.writeLock().lock();
+		try {
+			Integer row = rowById.remove(memberId);
+			if (row != null && !deleted[row]) {
+				deleted[row] = true;
+				deletedCount++;
+				modified = true;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 팀 이름 변경
+	public void renameTeam(long teamId, String name) {
+		lock.writeLock().lock();
+		try {
+			Integer ordinal = teamOrdinalById.get(teamId);
+			if (ordinal == null) {
+				return;
+			}
+			removeTeamName(teamNames.get(ordinal), ordinal);
+			teamNames.set(ordinal, name);
+			addTeamName(name, ordinal);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 지워진 행을 빼고 배열을 다시 채운다. 사전도 남은 행이 쓰는 username / 팀만 다시 만든다.
+	// DB 를 다시 읽는 rebuild 와 달리 메모리 안에서만 한다. 마지막 compact 이후 변경이 없으면 건너뛴다.
+	@Scheduled(fixedDelayString = "${member.snapshot.compact-interval:600000}")
+	public void compact() {
+		lock.writeLock().lock();
+		try {
+			if (!modified) {
+				return;
+			}
+			long[] oldIds = ids;
+			int[] oldAges = ages;
+			int[] oldTeamOrdinals = teamOrdinals;
+			int[] oldUsernameCodes = usernameCodes;
+			boolean[] oldDeleted = deleted;
+			int oldSize = size;
+			List<String> oldUsernames = new ArrayList<>(usernames);
+			List<String> oldTeamNames = new ArrayList<>(teamNames);
+			Map<Integer, Long> teamIdByOrdinal = new HashMap<>();
+			teamOrdinalById.forEach((teamId, ordinal) -> teamIdByOrdinal.put(ordinal, teamId));
+
+			clear();
+			for (int i = 0; i < oldSize; i++) {
+				if (oldDeleted[i]) {
+					continue;
+				}
+				int ordinal = oldTeamOrdinals[i];
+				int code = oldUsernameCodes[i];
+				append(oldIds[i],
+					code == NONE ? null : oldUsernames.get(code),
+					oldAges[i],
+					ordinal == NONE ? null : teamIdByOrdinal.get(ordinal),
+					ordinal == NONE ? null : oldTeamNames.get(ordinal));
+			}
+			modified = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public long count(MemberSearchCondition condition) {
+		return ageStats(condition).getCount();
+	}
+
+	// 조건에 맞는 회원들의 나이 집계
+	public MemberAgeStatsDto ageStats(MemberSearchCondition condition) {
+		lock.readLock().lock();
+		try {
+			boolean anyUsername = !StringUtils.hasText(condition.getUsername()) || condition.isIgnoreCase();
+			int username = anyUsername ? NONE : usernameCodeByName.getOrDefault(condition.getUsername(), NO_MATCH);
+			if (username == NO_MATCH) {
+				// 사전에 없는 이름이면 맞는 행이 없다.
+				return new MemberAgeStatsDto(0, 0, null, null);
+			}
+			// >> 82. 여러 값 조건은 코드 / 순번 집합(BitSet), id 는 정렬된 배열로 바꿔서 검사한다.
+			List<String> usernameList = InPredicates.distinct(condition.getUsernames());
+			List<String> teamNameList = InPredicates.distinct(condition.getTeamNames());
+			List<Long> memberIdList = InPredicates.distinct(condition.getMemberIds());
+			BitSet usernameSet = usernameFilter(condition, usernameList);
+			BitSet teamSet = teamFilter(condition.getTeamName(), teamNameList);
+			long[] memberIdSet = memberIdList.isEmpty() ? null : memberIdList.stream().mapToLong(Long::longValue).sorted().toArray();
+			if ((usernameSet != null && usernameSet.isEmpty()) || (teamSet != null && teamSet.isEmpty())) {
+				return new MemberAgeStatsDto(0, 0, null, null);
+			}
+
+			int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+			int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+			long count = 0;
+			long sum = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			int[] ages = this.ages;
+			int[] teamOrdinals = this.teamOrdinals;
+			int[] usernameCodes = this.usernameCodes;
+			long[] ids = this.ids;
+			boolean[] deleted = this.deleted;
+			for (int i = 0; i < size; i++) {
+				int age = ages[i];
+				if (!deleted[i]
+					&& age >= ageGoe && age <= ageLoe
+					&& (anyUsername || usernameCodes[i] == username)
+					&& (teamSet == null || (teamOrdinals[i] >= 0 && teamSet.get(teamOrdinals[i])))
+					&& (usernameSet == null || (usernameCodes[i] >= 0 && usernameSet.get(usernameCodes[i])))
+					&& (memberIdSet == null || Arrays.binarySearch(memberIdSet, ids[i]) >= 0)) {
+					count++;
+					sum += age;
+					min = Math.min(min, age);
+					max = Math.max(max, age);
+				}
+			}
+			return count == 0
+				? new MemberAgeStatsDto(0, 0, null, null)
+				: new MemberAgeStatsDto(count, sum, min, max);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// username 조건들(대소문자 무시, 앞부분 일치, 여러 값)에 맞는 사전 코드 집합. 조건이 없으면 null
+	// 회원 수가 아니라 서로 다른 username 수만큼만 훑는다.
+	private BitSet usernameFilter(MemberSearchCondition condition, List<String> usernameList) {
+		boolean ignoreCase = condition.isIgnoreCase();
+		String username = ignoreCase && StringUtils.hasText(condition.getUsername())
+			? Member.normalizeUsername(condition.getUsername()) : null;
+		String prefix = StringUtils.hasText(condition.getUsernamePrefix())
+			? (ignoreCase ? Member.normalizeUsername(condition.getUsernamePrefix()) : condition.getUsernamePrefix()) : null;
+		if (!ignoreCase && prefix == null) {
+			return usernameList.isEmpty() ? null : codes(usernameList, usernameCodeByName);
+		}
+		if (username == null && prefix == null && usernameList.isEmpty()) {
+			return null;
+		}
+
+		Set<String> names = usernameList.stream()
+			.map(name -> ignoreCase ? Member.normalizeUsername(name) : name)
+			.collect(Collectors.toSet());
+		BitSet codes = new BitSet();
+		for (int code = 0; code < usernames.size(); code++) {
+			String name = ignoreCase ? Member.normalizeUsername(usernames.get(code)) : usernames.get(code);
+			if ((username == null || username.equals(name))
+				&& (prefix == null || name.startsWith(prefix))
+				&& (names.isEmpty() || names.contains(name))) {
+				codes.set(code);
+			}
+		}
+		return codes;
+	}
+
+	// 팀 이름 조건(하나, 여러 값)에 맞는 순번 집합. 조건이 없으면 null
+	private BitSet teamFilter(String teamName, List<String> teamNameList) {
+		BitSet ordinals = null;
+		if (StringUtils.hasText(teamName)) {
+			ordinals = (BitSet) teamOrdinalsByName.getOrDefault(teamName, new BitSet()).clone();
+		}
+		if (!teamNameList.isEmpty()) {
+			BitSet listed = new BitSet();
+			for (String name : teamNameList) {
+				BitSet named = teamOrdinalsByName.get(name);
+				if (named != null) {
+					listed.or(named);
+				}
+			}
+			if (ordinals == null) {
+				ordinals = listed;
+			} else {
+				ordinals.and(listed);
+			}
+		}
+		return ordinals;
+	}
+
+	private void addTeamName(String name, int ordinal) {
+		if (name != null) {
+			teamOrdinalsByName.computeIfAbsent(name, key -> new BitSet()).set(ordinal);
+		}
+	}
+
+	private void removeTeamName(String name, int ordinal) {
+		BitSet ordinals = name != null ? teamOrdinalsByName.get(name) : null;
+		if (ordinals != null) {
+			ordinals.clear(ordinal);
+			if (ordinals.isEmpty()) {
+				teamOrdinalsByName.remove(name);
+			}
+		}
+	}
+
+	private static BitSet codes(List<String> names, Map<String, Integer> dictionary) {
+		BitSet codes = new BitSet();
+		for (String name : names) {
+			Integer code = dictionary.get(name);
+			if (code != null) {
+				codes.set(code);
+			}
+		}
+		return codes;
+	}
+
+	private void clear() {
+		ids = new long[0];
+		ages = new int[0];
+		teamOrdinals = new int[0];
+		usernameCodes = new int[0];
+		deleted = new boolean[0];
+		size = 0;
+		deletedCount = 0;
+		rowById.clear();
+		usernames.clear();
+		usernameCodeByName.clear();
+		teamOrdinalById.clear();
+		teamOrdinalsByName.clear();
+		teamNames.clear();
+	}
+
+	private void append(long memberId, String username, int age, Long teamId, String teamName) {
+		if (size == ids.length) {
+			int capacity = Math.max(16, size * 2);
+			ids = Arrays.copyOf(ids, capacity);
+			ages = Arrays.copyOf(ages, capacity);
+			teamOrdinals = Arrays.copyOf(teamOrdinals, capacity);
+			usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+			deleted = Arrays.copyOf(deleted, capacity);
+		}
+		ids[size] = memberId;
+		ages[size] = age;
+		teamOrdinals[size] = teamOrdinal(teamId, teamName);
+		usernameCodes[size] = usernameCode(username);
+		rowById.put(memberId, size);
+		size++;
+		modified = true;
+	}
+
+	private int usernameCode(String username) {
+		if (username == null) {
+			return NONE;
+		}
+		return usernameCodeByName.computeIfAbsent(username, name -> {
+			usernames.add(name);
+			return usernames.size() - 1;
+		});
+	}
+
+	private int teamOrdinal(Long teamId, String teamName) {
+		if (teamId == null) {
+			return NONE;
+		}
+		return teamOrdinalById.computeIfAbsent(teamId, id -> {
+			teamNames.add(teamName);
+			int ordinal = teamNames.size() - 1;
+			addTeamName(teamName, ordinal);
+			return ordinal;
+		});
+	}
+}
@@ -0,0 +1,302 @@
+package study.querydsl.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// >> 74. 전체 회원 내보내기 (member_id 범위로 나눠서 병렬 처리)
+// member_id 의 최소 ~ 최대 구간을 worker 수만큼 나누고, worker 마다 별도 커넥션 + 읽기 전용 트랜잭션으로
+// 자기 구간만 스트리밍으로 읽어 각자의 segment 파일에 쓴다. 모두 끝나면 순서대로 이어 붙인다.
+// worker 수는 커넥션 풀 크기를 넘지 않게 잡는다. (넘으면 커넥션을 기다리느라 오히려 느려짐)
+// 한 구간이라도 실패하거나 중단되면 나머지 worker 도 멈추게 하고, 다 멈춘 뒤 segment 파일(.part)을 지운다.
+// 진행 상황은 /admin/members/export/progress 로 볼 수 있다. (MemberExportController)
+@Slf4j
+@Component
+public class MemberExporter {
+
+	private static final String HEADER = "memberId,username,age,teamId,teamName\n";
+	private static final long PROGRESS_LOG_ROWS = 100_000;
+	private static final long CANCEL_WAIT_SECONDS = 60;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate readOnlyTransaction;
+	private final int maxWorkers;
+
+	@Value("${member.export.workers:4}")
+	private int defaultWorkers;
+
+	@Value("${member.export.dir:export}")
+	private String exportDir;
+
+	private volatile List<Partition> lastPartitions = Collections.emptyList();
+	private final ExecutorService nightlyExecutor = Executors.newSingleThreadExecutor();
+	private final AtomicBoolean nightlyRunning = new AtomicBoolean();
+
+	public MemberExporter(DataSource dataSource, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.maxWorkers = poolSize(dataSource);
+	}
+
+	private static int poolSize(DataSource dataSource) {
+		try {
+			if (dataSource.isWrapperFor(HikariDataSource.class)) {
+				return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+			}
+		} catch (SQLException e) {
+			// 풀 크기를 모르면 요청한 worker 수를 그대로 쓴다.
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	// 야간 배치 (member.export.cron 을 설정했을 때만 동작, 기본값 "-" 는 사용 안 함)
+	// 스케줄러 스레드는 다른 주기 작업(변경 이벤트 폴링 등)과 같이 쓰니까 전용 스레드에 넘기고 바로 돌아온다.
+	// 이전 내보내기가 아직 끝나지 않았으면 이번 차례는 건너뛴다.
+	@Scheduled(cron = "${member.export.cron:-}")
+	public void exportNightly() {
+		if (!nightlyRunning.compareAndSet(false, true)) {
+			log.warn("previous export is still running. skipped.");
+			return;
+		}
+		nightlyExecutor.execute(() -> {
+			try {
+				export(Paths.get(exportDir, "members-" + LocalDate.now() + ".csv"), defaultWorkers);
+			} catch (RuntimeException e) {
+				log.error("nightly export failed.", e);
+			} finally {
+				nightlyRunning.set(false);
+			}
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		nightlyExecutor.shutdownNow();
+	}
+
+	public List<Partition> export(Path target, int workers) {
+		Map<String, Object> range = jdbcTemplate.queryForMap("select min(member_id) as min_id, max(member_id) as max_id from member");
+		Number minId = (Number) range.get("min_id");
+		Number maxId = (Number) range.get("max_id");
+
+		try {
+			Path dir = target.toAbsolutePath().getParent();
+			Files.createDirectories(dir);
+			if (minId == null) {
+				Files.write(target, HEADER.getBytes(StandardCharsets.UTF_8));
+				return Collections.emptyList();
+			}
+
+			List<Partition> partitions = partition(minId.longValue(), maxId.longValue(), Math.min(workers, maxWorkers), target);
+			lastPartitions = partitions;
+
+			ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
+			boolean merged = false;
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (Partition partition : partitions) {
+					futures.add(executor.submit(() -> exportPartition(partition)));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+				merge(target, partitions);
+				merged = true;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("내보내기에 실패했습니다.", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("내보내기가 중단되었습니다.", e);
+			} finally {
+				if (!merged) {
+					cancel(executor, partitions);
+				}
+				executor.shutdownNow();
+			}
+
+			log.info("export finished. file={}, rows={}", target,
+				partitions.stream().mapToLong(Partition::getRows).sum());
+			return partitions;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// 마지막(또는 진행 중인) 내보내기의 구간별 진행 상황
+	public List<Partition> getProgress() {
+		return lastPartitions;
+	}
+
+	// 남은 worker 를 멈추고(JDBC 읽기는 인터럽트로 멈추지 않으니 행마다 cancelled 를 본다) 다 끝나면 segment 파일을 지운다.
+	// 기다리는 시간 안에 안 끝난 worker 가 있으면 그 파일은 못 지우고 남긴다.
+	private void cancel(ExecutorService executor, List<Partition> partitions) {
+		partitions.forEach(partition -> partition.cancelled = true);
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(CANCEL_WAIT_SECONDS, TimeUnit.SECONDS)) {
+				log.warn("export workers did not stop in {}s. segment files may be left.", CANCEL_WAIT_SECONDS);
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		for (Partition partition : partitions) {
+			try {
+				Files.deleteIfExists(partition.getSegment());
+			} catch (IOException e) {
+				log.warn("failed to delete segment file {}", partition.getSegment(), e);
+			}
+		}
+	}
+
+	private List<Partition> partition(long minId, long maxId, int workers, Path target) {
+		int count = (int) Math.max(1, Math.min(workers, maxId - minId + 1));
+		long step = (maxId - minId + 1 + count - 1) / count;
+		List<Partition> partitions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long from = minId + step * i;
+			long to = Math.min(maxId, from + step - 1);
+			Path segment = target.resolveSibling(target.getFileName() + ".part" + i);
+			partitions.add(new Partition(i, from, to, segment));
+		}
+		return partitions;
+	}
+
+	private void exportPartition(Partition partition) {
+		try (BufferedWriter writer = Files.newBufferedWriter(partition.getSegment(), StandardCharsets.UTF_8)) {
+			readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+				"select m.member_id, m.username, m.age, m.team_id, t.name" +
+					" from member m left join team t on m.team_id = t.team_id" +
+					" where m.member_id between ? and ?" +
+					" order by m.member_id",
+				rs -> {
+					if (partition.cancelled) {
+						throw new CancellationException("export cancelled");
+					}
+					try {
+						writer.write(Long.toString(rs.getLong(1)));
+						writer.write(',');
+						writer.write(csv(rs.getString(2)));
+						writer.write(',');
+						writer.write(Integer.toString(rs.getInt(3)));
+						writer.write(',');
+						long teamId = rs.getLong(4);
+						writer.write(rs.wasNull() ? "" : Long.toString(teamId));
+						writer.write(',');
+						writer.write(csv(rs.getString(5)));
+						writer.write('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					long rows = partition.rows.incrementAndGet();
+					if (rows % PROGRESS_LOG_ROWS == 0) {
+						log.info("export partition {} [{} ~ {}] rows={}", partition.getIndex(), partition.getFromId(), partition.getToId(), rows);
+					}
+				},
+				partition.getFromId(), partition.getToId()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		partition.done = true;
+		log.info("export partition {} [{} ~ {}] done. rows={}", partition.getIndex(), partition.getFromId(), partition.getToId(), partition.getRows());
+	}
+
+	private void merge(Path target, List<Partition> partitions) throws IOException {
+		try (OutputStream out = Files.newOutputStream(target)) {
+			out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+			for (Partition partition : partitions) {
+				Files.copy(partition.getSegment(), out);
+				Files.delete(partition.getSegment());
+			}
+		}
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	public static class Partition {
+
+		private final int index;
+		private final long fromId;
+		private final long toId;
+		private final Path segment;
+		private final AtomicLong rows = new AtomicLong();
+		private volatile boolean done;
+		private volatile boolean cancelled;
+
+		Partition(int index, long fromId, long toId, Path segment) {
+			this.index = index;
+			this.fromId = fromId;
+			this.toId = toId;
+			this.segment = segment;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public long getFromId() {
+			return fromId;
+		}
+
+		public long getToId() {
+			return toId;
+		}
+
+		Path getSegment() {
+			return segment;
+		}
+
+		public long getRows() {
+			return rows.get();
+		}
+
+		public boolean isDone() {
+			return done;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+}
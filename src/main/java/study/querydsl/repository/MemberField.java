@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// >> 69. 필요한 필드만 조회 (?fields=memberId,username)
+// teamId 는 member 테이블의 FK 로 읽을 수 있어서 teamName 만 team 조인이 필요하다.
+public enum MemberField {
+
+	memberId(member.id, false),
+	username(member.username, false),
+	age(member.age, false),
+	teamId(member.team.id, false),
+	teamName(team.name, true);
+
+	private final Expression<?> path;
+	private final boolean teamJoin;
+
+	MemberField(Expression<?> path, boolean teamJoin) {
+		this.path = path;
+		this.teamJoin = teamJoin;
+	}
+
+	public Expression<?> getPath() {
+		return path;
+	}
+
+	public boolean isTeamJoin() {
+		return teamJoin;
+	}
+
+	// "memberId,username" -> [memberId, username] (없는 필드는 거절)
+	public static Set<MemberField> parse(String fields) {
+		EnumSet<MemberField> result = EnumSet.noneOf(MemberField.class);
+		for (String field : StringUtils.commaDelimitedListToStringArray(fields)) {
+			String name = field.trim();
+			if (name.isEmpty()) {
+				continue;
+			}
+			try {
+				result.add(valueOf(name));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("조회할 수 없는 필드입니다: " + name);
+			}
+		}
+		if (result.isEmpty()) {
+			return EnumSet.allOf(MemberField.class);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,232 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// >> 77. CSV 대량 등록 (username,age,teamName)
+// 파일 전체를 메모리에 올리지 않고 한 줄씩 읽어서 chunk-size 건마다 트랜잭션을 나눠 커밋한다.
+// - 팀 이름 -> id 는 로컬 캐시로 찾고 (행마다 select 하지 않음), 없는 팀은 별도 트랜잭션으로 바로 만든다.
+//   팀 이름에는 유니크 제약이 있어서 다른 등록 요청이 먼저 만들었으면 중복 키가 나고, 그 팀을 다시 찾아 쓴다.
+// - insert 는 hibernate.jdbc.batch_size 로 모아서 보내고, 그 단위로 flush / clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+// - 잘못된 행은 rejects 에 남기고 계속 진행한다. chunk 커밋이 실패하면 그 chunk 만 한 건씩 다시 넣어서 실패한 행을 찾는다.
+// 비용: 일반 저장과 같이 JPA 로 넣으니 이벤트 리스너도 그대로 돈다. 회원 한 명마다 member, change_event 두 줄이
+// 배치 insert 로 들어가고, chunk(트랜잭션) 마다 change_event seq 받기 1번 + team_stats 갱신이 팀 수만큼 붙는다.
+// 그래서 JDBC 로 member 만 넣는 것보다 insert 가 두 배이고, chunk 커밋 직전에는 다른 쓰기 트랜잭션과 한 줄로 선다.
+// (변경 이벤트 없이 넣으면 자동완성 색인, 검색 캐시, 변경분 동기화가 등록된 회원을 모른다)
+@Slf4j
+@Component
+public class MemberImporter {
+
+	private static final int MAX_USERNAME_LENGTH = 255;
+
+	private final EntityManager em;
+	private final TransactionTemplate transaction;
+	private final TransactionTemplate teamTransaction;
+
+	@Value("${member.import.chunk-size:1000}")
+	private int chunkSize;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int flushSize;
+
+	@Value("${member.import.max-rejects:1000}")
+	private int maxRejects;
+
+	public MemberImporter(EntityManager em, PlatformTransactionManager transactionManager) {
+		this.em = em;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.teamTransaction = new TransactionTemplate(transactionManager);
+		this.teamTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	public MemberImportResult importCsv(InputStream in) throws IOException {
+		MemberImportResult result = new MemberImportResult(maxRejects);
+		Map<String, Long> teamIds = new HashMap<>();	// 요청 하나 동안만 쓰는 캐시
+		List<Row> chunk = new ArrayList<>(chunkSize);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		long lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isEmpty() || (lineNumber == 1 && line.toLowerCase().startsWith("username"))) {
+				continue;	// 빈 줄, 헤더
+			}
+			try {
+				chunk.add(parse(lineNumber, line));
+			} catch (IllegalArgumentException e) {
+				result.reject(lineNumber, line, e.getMessage());
+				continue;
+			}
+			if (chunk.size() == chunkSize) {
+				importChunk(chunk, teamIds, result);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			importChunk(chunk, teamIds, result);
+		}
+
+		log.info("import finished. imported={}, rejected={}, lines={}", result.getImported(), result.getRejected(), lineNumber);
+		return result;
+	}
+
+	private void importChunk(List<Row> chunk, Map<String, Long> teamIds, MemberImportResult result) {
+		try {
+			transaction.executeWithoutResult(status -> {
+				for (int i = 0; i < chunk.size(); i++) {
+					persist(chunk.get(i), teamIds);
+					if ((i + 1) % flushSize == 0) {
+						em.flush();
+						em.clear();
+					}
+				}
+			});
+			result.imported(chunk.size());
+		} catch (RuntimeException e) {
+			log.warn("import chunk failed. retrying row by row. lines {} ~ {}",
+				chunk.get(0).lineNumber, chunk.get(chunk.size() - 1).lineNumber, e);
+			for (Row row : chunk) {
+				try {
+					transaction.executeWithoutResult(status -> persist(row, teamIds));
+					result.imported(1);
+				} catch (RuntimeException rowError) {
+					result.reject(row.lineNumber, row.line, rowError.getMessage());
+				}
+			}
+		}
+	}
+
+	private void persist(Row row, Map<String, Long> teamIds) {
+		Member member = new Member(row.username, row.age);
+		if (row.teamName != null) {
+			Long teamId = teamIds.computeIfAbsent(row.teamName, this::findOrCreateTeam);
+			member.assignTeam(em.getReference(Team.class, teamId), row.teamName);
+		}
+		em.persist(member);
+	}
+
+	// chunk 가 롤백되어도 캐시에 넣은 팀 id 가 유효하도록 팀은 따로 커밋한다.
+	// 없으면 만들고, 그 사이 다른 요청이 같은 이름으로 먼저 만들었으면(유니크 제약 위반) 그 팀을 쓴다.
+	private Long findOrCreateTeam(String name) {
+		Long id = teamTransaction.execute(status -> findTeamId(name));
+		if (id != null) {
+			return id;
+		}
+		try {
+			return teamTransaction.execute(status -> {
+				Team team = new Team(name);
+				em.persist(team);
+				em.flush();	// 중복 키를 커밋이 아니라 여기서 받는다.
+				return team.getId();
+			});
+		} catch (PersistenceException | DataIntegrityViolationException e) {
+			Long existing = teamTransaction.execute(status -> findTeamId(name));
+			if (existing == null) {
+				throw e;
+			}
+			return existing;
+		}
+	}
+
+	private Long findTeamId(String name) {
+		List<Long> ids = em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+			.setParameter("name", name)
+			.getResultList();
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	private static Row parse(long lineNumber, String line) {
+		List<String> columns = split(line);
+		if (columns.size() < 2 || columns.size() > 3) {
+			throw new IllegalArgumentException("컬럼 수가 맞지 않습니다. (username,age,teamName)");
+		}
+		String username = columns.get(0).trim();
+		if (!StringUtils.hasText(username)) {
+			throw new IllegalArgumentException("username 이 비어 있습니다.");
+		}
+		if (username.length() > MAX_USERNAME_LENGTH) {
+			throw new IllegalArgumentException("username 이 너무 깁니다.");
+		}
+		int age;
+		try {
+			age = Integer.parseInt(columns.get(1).trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("age 가 숫자가 아닙니다: " + columns.get(1));
+		}
+		if (age < 0) {
+			throw new IllegalArgumentException("age 는 0 이상이어야 합니다: " + age);
+		}
+		String teamName = columns.size() == 3 && StringUtils.hasText(columns.get(2)) ? columns.get(2).trim() : null;
+		return new Row(lineNumber, line, username, age, teamName);
+	}
+
+	// 쉼표 구분, 큰따옴표로 감싼 값 안의 쉼표와 "" 는 값으로 취급 (MemberExporter 가 쓰는 형식)
+	private static List<String> split(String line) {
+		List<String> columns = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				columns.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+		}
+		columns.add(value.toString());
+		return columns;
+	}
+
+	private static class Row {
+		final long lineNumber;
+		final String line;
+		final String username;
+		final int age;
+		final String teamName;
+
+		Row(long lineNumber, String line, String username, int age, String teamName) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+			this.username = username;
+			this.age = age;
+			this.teamName = teamName;
+		}
+	}
+}
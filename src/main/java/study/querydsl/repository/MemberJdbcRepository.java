@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+
+// >> 65. JDBC 로 MemberTeamDto 를 바로 조회하는 리포지토리
+// HQL 변환, 하이버네이트 결과 변환, 영속성 컨텍스트를 모두 거치지 않는다.
+// 조건은 JPA 조회와 같은 MemberPredicates.searchPredicates 를 SqlPredicates 로 SQL 로 옮겨서 쓴다.
+@Repository
+public class MemberJdbcRepository {
+
+	// team_id 는 팀이 없는 회원이면 null (getLong 은 0 을 돌려준다)
+	private static final RowMapper<MemberTeamDto> MEMBER_TEAM_ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+		rs.getLong("member_id"),
+		rs.getString("username"),
+		rs.getInt("age"),
+		rs.getObject("team_id", Long.class),
+		rs.getString("team_name"));
+
+	private static final RowMapper<MemberRankDto> MEMBER_RANK_ROW_MAPPER = (rs, rowNum) -> new MemberRankDto(
+		rs.getLong("member_id"),
+		rs.getString("username"),
+		rs.getInt("age"),
+		rs.getObject("team_id", Long.class),
+		rs.getString("team_name"),
+		rs.getLong("age_rank"));
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public MemberJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		StringBuilder sql = new StringBuilder(
+			"select m.member_id, m.username, m.age, t.team_id, t.name as team_name" +
+				" from member m" +
+				" left join team t on m.team_id = t.team_id" +
+				" where 1 = 1");
+		MapSqlParameterSource params = new MapSqlParameterSource();
+
+		SqlPredicates.where(sql, params, MemberPredicates.searchPredicates(condition));
+
+		return jdbcTemplate.query(sql.toString(), params, MEMBER_TEAM_ROW_MAPPER);
+	}
+
+	// >> 71. 윈도우 함수로 한 번에 처리하기 (>> 22 ~ 24 서브쿼리 대체)
+	// JPQL(하이버네이트 5)은 윈도우 함수와 from 절 서브쿼리를 지원하지 않아서 네이티브 SQL 로 작성한다.
+	// 상관 서브쿼리는 행(또는 팀)마다 집계를 다시 하지만, 윈도우 함수는 팀별로 한 번만 훑는다.
+
+	// 팀 평균 나이보다 나이가 많은 회원
+	public List<MemberTeamDto> findOlderThanTeamAverage() {
+		String sql = "select member_id, username, age, team_id, team_name" +
+			" from (" +
+			"   select m.member_id, m.username, m.age, t.team_id, t.name as team_name," +
+			"          avg(cast(m.age as double)) over (partition by m.team_id) as team_avg_age" +
+			"   from member m" +
+			"   join team t on m.team_id = t.team_id" +
+			" ) x" +
+			" where age > team_avg_age" +
+			" order by member_id";
+		return jdbcTemplate.query(sql, MEMBER_TEAM_ROW_MAPPER);
+	}
+
+	// 팀에서 가장 나이가 많은 회원 (동률이면 모두)
+	public List<MemberTeamDto> findOldestPerTeam() {
+		String sql = "select member_id, username, age, team_id, team_name" +
+			" from (" +
+			"   select m.member_id, m.username, m.age, t.team_id, t.name as team_name," +
+			"          rank() over (partition by m.team_id order by m.age desc) as age_rank" +
+			"   from member m" +
+			"   join team t on m.team_id = t.team_id" +
+			" ) x" +
+			" where age_rank = 1" +
+			" order by member_id";
+		return jdbcTemplate.query(sql, MEMBER_TEAM_ROW_MAPPER);
+	}
+
+	// 팀 안에서의 나이 순위 (나이가 많을수록 1등)
+	public List<MemberRankDto> findRankWithinTeam() {
+		String sql = "select m.member_id, m.username, m.age, t.team_id, t.name as team_name," +
+			"        rank() over (partition by m.team_id order by m.age desc) as age_rank" +
+			" from member m" +
+			" join team t on m.team_id = t.team_id" +
+			" order by t.team_id, age_rank, m.member_id";
+		return jdbcTemplate.query(sql, MEMBER_RANK_ROW_MAPPER);
+	}
+}
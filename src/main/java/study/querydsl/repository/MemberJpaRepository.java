@@ -2,23 +2,29 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.SearchResult;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 
 import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.repository.MemberPredicates.*;
 
 // >> 42. 순수 JPA 리포지토리와 querydsl 사용
 @Repository
@@ -26,10 +32,23 @@ public class MemberJpaRepository {
 
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
 
-	public MemberJpaRepository(EntityManager em) {
+	// >> 66. 같은 조건으로 동시에 들어온 조회는 한 번만 실행 (key = 조건의 불변 사본 + 타임아웃)
+	private final SingleFlight<List<Object>, List<MemberTeamDto>> searchByWhereFlight;
+	private final SingleFlight<List<Object>, SearchResult<MemberTeamDto>> searchByWhereBoundedFlight;
+	private final int maxRows;
+
+	public MemberJpaRepository(EntityManager em,
+							   MeterRegistry meterRegistry,
+							   @Value("${member.search.max-rows:1000}") int maxRows) {
 		this.em = em;	// 인젝션
 		this.queryFactory = new JPAQueryFactory(em);	// entity manager 이용
+		this.searchByWhereFlight = new SingleFlight<List<Object>, List<MemberTeamDto>>()
+			.bindTo(meterRegistry, "searchByWhere");
+		this.searchByWhereBoundedFlight = new SingleFlight<List<Object>, SearchResult<MemberTeamDto>>()
+			.bindTo(meterRegistry, "searchByWhereBounded");
+		this.maxRows = maxRows;
 	}
 
 	public void save(Member member) {
@@ -104,43 +123,55 @@ public class MemberJpaRepository {
 	// >> 49. where 절을 이용한 동적 쿼리와 파라미터 최적화
 	// => 47 과정에서 BooleanBuilder 사용한 것 보다 더 보기 좋음
 	public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition) {
-		return queryFactory
-			.select(new QMemberTeamDto(
-				member.id.as("memberId"),    // db에서는 id라 되어 있으니까
-				member.username,
-				member.age,
-				team.id.as("teamId"),
-				team.name.as("teamName")))
-			.from(member)
-			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			)
-			.fetch();
+		return searchByWhere(condition, null);
 	}
 
-	// predicate 보다는 BooleanExpression으로 할 것
-	private BooleanExpression usernameEq(String username) {
-		return StringUtils.hasText(username) ? member.username.eq(username) : null;
+	// >> 67. 쿼리 타임아웃 (javax.persistence.query.timeout 힌트, 밀리초)
+	// 시간이 지나면 JDBC 드라이버가 statement 를 취소하고 QueryTimeoutException 이 발생한다.
+	public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition, Duration timeout) {
+		return searchByWhereFlight.execute(condition.toKey(timeout), () -> {
+			JPAQuery<MemberTeamDto> query = queryFactory
+				.select(new QMemberTeamDto(
+					member.id.as("memberId"),    // db에서는 id라 되어 있으니까
+					member.username,
+					member.age,
+					team.id.as("teamId"),
+					team.name.as("teamName")))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(searchPredicates(condition));
+			if (timeout != null) {
+				// JDBC 타임아웃은 초 단위라 1초 미만은 1초로 올린다. (0 이면 타임아웃이 없는 것으로 처리됨)
+				query.setHint(QUERY_TIMEOUT_HINT, Math.toIntExact(Math.max(timeout.toMillis(), 1000)));
+			}
+			return Collections.unmodifiableList(query.fetch());
+		});
 	}
 
-	private BooleanExpression teamNameEq(String teamName) {
-		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-
+	// >> 68. 최대 건수 제한 조회
+	// 조건이 비어 있으면 테이블 전체가 메모리에 올라온다. limit(max + 1) 로 잘렸는지만 확인한다.
+	// 잘린 뒤에는 페이징으로 이어서 볼 수 있도록 member.id 순으로 정렬한다.
+	public SearchResult<MemberTeamDto> searchByWhereBounded(MemberSearchCondition condition, Duration timeout) {
+		return searchByWhereBoundedFlight.execute(condition.toKey(timeout), () -> {
+			JPAQuery<MemberTeamDto> query = queryFactory
+				.select(new QMemberTeamDto(
+					member.id.as("memberId"),
+					member.username,
+					member.age,
+					team.id.as("teamId"),
+					team.name.as("teamName")))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(searchPredicates(condition))
+				.orderBy(member.id.asc())
+				.limit(maxRows + 1);
+			if (timeout != null) {
+				query.setHint(QUERY_TIMEOUT_HINT, Math.toIntExact(Math.max(timeout.toMillis(), 1000)));
+			}
+			return SearchResult.of(query.fetch(), maxRows);
+		});
 	}
 
-	private BooleanExpression ageGoe(Integer ageGoe) {
-		return ageGoe != null ? member.age.goe(ageGoe) : null;
-	}
-
-	private BooleanExpression ageLoe(Integer ageLoe) {
-		return ageLoe != null ? member.age.loe(ageLoe) : null;
-	}
-
-
 	// >> 50. 만약 49처럼 DTO가 아닌 Entity로 바로 반환을 해야 한다면 ?
 	// 그냥 DTO를 member로 나오게 바꾸면 된다.
 	// 간단히 수정하고 쓸 수 있다는 그 재사용성이 제일 좋다.
@@ -148,21 +179,10 @@ public class MemberJpaRepository {
 		return queryFactory
 			.selectFrom(member)
 			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-//				ageGoe(condition.getAgeGoe()),
-//				ageLoe(condition.getAgeLoe())
-				// >> 51. 이런 식으로 조립할 수 있다. null 체크 주의
-				ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-
-			)
+			// >> 51. 조건 조립은 MemberPredicates 에 모아 두었다. DTO 검색(>> 49)과 같은 조건을 그대로 쓴다.
+			.where(searchPredicates(condition))
 			.fetch();
 	}
 
-	private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
-		return ageGoe(ageLoe).and(ageGoe(ageGoe));
-	}
-
 
 }
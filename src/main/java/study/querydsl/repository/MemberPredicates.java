@@ -0,0 +1,85 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringPath;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// >> 49. 회원 검색 조건 (MemberSearchCondition -> where 절)
+// 검색 쿼리들이 같은 조건 목록을 쓰도록 한 곳에 모았다. 값이 없는 조건은 null 이라 where 에서 빠진다.
+// - searchPredicates: team 을 조인한 쿼리용 (팀 이름은 team.name)
+// - denormalizedSearchPredicates: team 조인 없이 member.teamName (>> 64) 으로
+final class MemberPredicates {
+
+	private MemberPredicates() {
+	}
+
+	static BooleanExpression[] searchPredicates(MemberSearchCondition condition) {
+		return predicates(condition, team.name);
+	}
+
+	static BooleanExpression[] denormalizedSearchPredicates(MemberSearchCondition condition) {
+		return predicates(condition, member.teamName);
+	}
+
+	private static BooleanExpression[] predicates(MemberSearchCondition condition, StringPath teamName) {
+		return new BooleanExpression[]{
+			usernameEq(condition.getUsername(), condition.isIgnoreCase()),
+			usernameStartsWith(condition.getUsernamePrefix(), condition.isIgnoreCase()),
+			StringUtils.hasText(condition.getTeamName()) ? teamName.eq(condition.getTeamName()) : null,
+			ageGoe(condition.getAgeGoe()),
+			ageLoe(condition.getAgeLoe()),
+			usernameIn(condition.getUsernames(), condition.isIgnoreCase()),
+			InPredicates.in(teamName, condition.getTeamNames()),
+			InPredicates.in(member.id, condition.getMemberIds())
+		};
+	}
+
+	// predicate 보다는 BooleanExpression으로 할 것
+	static BooleanExpression usernameEq(String username, boolean ignoreCase) {
+		if (!StringUtils.hasText(username)) {
+			return null;
+		}
+		return ignoreCase
+			? member.usernameLower.eq(Member.normalizeUsername(username))
+			: member.username.eq(username);
+	}
+
+	// >> 84. 앞부분 일치 (PrefixRange 참고)
+	static BooleanExpression usernameStartsWith(String prefix, boolean ignoreCase) {
+		if (!StringUtils.hasText(prefix)) {
+			return null;
+		}
+		return ignoreCase
+			? PrefixRange.of(member.usernameLower, Member.normalizeUsername(prefix))
+			: PrefixRange.of(member.username, prefix);
+	}
+
+	static BooleanExpression teamNameEq(String teamName) {
+		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+	}
+
+	static BooleanExpression ageGoe(Integer ageGoe) {
+		return ageGoe != null ? member.age.goe(ageGoe) : null;
+	}
+
+	static BooleanExpression ageLoe(Integer ageLoe) {
+		return ageLoe != null ? member.age.loe(ageLoe) : null;
+	}
+
+	// >> 82. 여러 값 조건 (InPredicates 참고)
+	static BooleanExpression usernameIn(List<String> usernames, boolean ignoreCase) {
+		if (ignoreCase && usernames != null) {
+			return InPredicates.in(member.usernameLower,
+				usernames.stream().map(Member::normalizeUsername).collect(Collectors.toList()));
+		}
+		return InPredicates.in(member.username, usernames);
+	}
+}
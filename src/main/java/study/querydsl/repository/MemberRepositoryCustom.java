@@ -2,18 +2,47 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberChangesDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 // >> 56. 사용자 정의 리포지토리
 public interface MemberRepositoryCustom {
 	List<MemberTeamDto> search(MemberSearchCondition condition);
 
+	// >> 68. 최대 건수 제한 (member.search.max-rows)
+	SearchResult<MemberTeamDto> searchBounded(MemberSearchCondition condition);
+
+	// >> 69. 필요한 필드만 조회 (필드명 -> 값)
+	SearchResult<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields);
+
+	// >> 64. 팀 이름 역정규화 (조인 없이 member 테이블만 조회)
+	List<MemberTeamDto> searchDenormalized(MemberSearchCondition condition);
+
+	long renameTeam(Long teamId, String name);
+
+	// >> 76. 변경분 동기화 (변경 이벤트 seq 가 afterSeq 다음인 것부터. afterSeq 가 null 이면 지금 위치만 돌려준다)
+	MemberChangesDto findChangedAfter(Long afterSeq, int limit);
+
+	// since 이후에 기록된 변경부터 (시작 위치만 since 로 찾고 나머지는 findChangedAfter 와 같다)
+	MemberChangesDto findChangedSince(LocalDateTime since, int limit);
+
 	// >> 58. querydsl 페이징 연동
 	Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 	Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+	// >> 63. count 가 큰 경우 추정치를 돌려준다. (EstimatedPage.isExactTotal 로 구분)
+	EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+	// >> 62. keyset 페이징 (last 가 null 이면 첫 페이지)
+	Slice<MemberTeamDto> searchSliceAfter(MemberSearchCondition condition, MemberTeamDto last, Pageable pageable);
+
 
 }
@@ -1,37 +1,103 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.MemberChangesDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+import static study.querydsl.repository.MemberPredicates.denormalizedSearchPredicates;
+import static study.querydsl.repository.MemberPredicates.searchPredicates;
 
 // >> 57. JPA에서 인터페이스를 구현하는 사용자 정의 리포지토리 이름 끝에는 Impl이 들어가야 함
 @Repository
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final JdbcTemplate jdbcTemplate;
+	private final MemberJdbcRepository memberJdbcRepository;
+	private final ChangeFeed changeFeed;
+	private final boolean jdbcSearch;
+	private final long exactCountThreshold;
+	private final String countEstimateSql;
+	private final int maxRows;
+	// >> 66. 같은 조건으로 동시에 들어온 조회는 한 번만 실행
+	private final SingleFlight<List<Object>, List<MemberTeamDto>> searchFlight;
 
-	public MemberRepositoryImpl(EntityManager em) {
+	public MemberRepositoryImpl(EntityManager em,
+								JdbcTemplate jdbcTemplate,
+								MemberJdbcRepository memberJdbcRepository,
+								ChangeFeed changeFeed,
+								MeterRegistry meterRegistry,
+								@Value("${member.search.engine:jpa}") String searchEngine,
+								@Value("${member.search.exact-count-threshold:1000}") long exactCountThreshold,
+								@Value("${member.search.count-estimate-sql:" + H2_COUNT_ESTIMATE_SQL + "}") String countEstimateSql,
+								@Value("${member.search.max-rows:1000}") int maxRows) {
+		this.em = em;
 		this.queryFactory = new JPAQueryFactory(em);
+		this.jdbcTemplate = jdbcTemplate;
+		this.memberJdbcRepository = memberJdbcRepository;
+		this.changeFeed = changeFeed;
+		this.jdbcSearch = "jdbc".equalsIgnoreCase(searchEngine);
+		this.exactCountThreshold = exactCountThreshold;
+		this.countEstimateSql = countEstimateSql;
+		this.maxRows = maxRows;
+		this.searchFlight = new SingleFlight<List<Object>, List<MemberTeamDto>>()
+			.bindTo(meterRegistry, "search");
 	}
 
+	// DB 통계 정보에서 member 테이블의 대략적인 행 수를 가져온다. (DB가 바뀌면 설정으로 바꿔준다)
+	static final String H2_COUNT_ESTIMATE_SQL =
+		"select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where TABLE_NAME = 'MEMBER'";
+
 	// >> 49. where 절을 이용한 동적 쿼리와 파라미터 최적화
 	// => 47 과정에서 BooleanBuilder 사용한 것 보다 더 보기 좋음
+	// >> 66. 같은 조건의 동시 요청은 하나의 쿼리 결과를 같이 받는다.
 	@Override
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		return searchFlight.execute(condition.toKey(), () -> Collections.unmodifiableList(doSearch(condition)));
+	}
+
+	// >> 65. member.search.engine=jdbc 이면 JDBC 로 바로 조회한다. (MemberJdbcRepository)
+	private List<MemberTeamDto> doSearch(MemberSearchCondition condition) {
+		if (jdbcSearch) {
+			return memberJdbcRepository.search(condition);
+		}
 		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id.as("memberId"),    // db에서는 id라 되어 있으니까
@@ -41,12 +107,155 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 				team.name.as("teamName")))
 			.from(member)
 			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			)
+			.where(searchPredicates(condition))
+			.fetch();
+	}
+
+	// >> 68. 최대 건수 제한 조회 (limit(max + 1) 로 잘렸는지 확인)
+	@Override
+	public SearchResult<MemberTeamDto> searchBounded(MemberSearchCondition condition) {
+		List<MemberTeamDto> fetched = queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")))
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(searchPredicates(condition))
+			.orderBy(member.id.asc())
+			.limit(maxRows + 1)
+			.fetch();
+
+		return SearchResult.of(fetched, maxRows);
+	}
+
+	// >> 69. 요청한 필드만 select 한다.
+	// team 필드가 없으면 team 조인을 아예 하지 않는다. (팀 이름 조건은 조인 없이 member.teamName 으로 본다)
+	// 행이 좁아지고 DTO 도 만들지 않기 때문에 많은 건수를 내려줄 때 유리하다. (건수 제한은 >> 68 과 동일)
+	@Override
+	public SearchResult<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+		List<MemberField> selected = new ArrayList<>(EnumSet.copyOf(fields));
+		boolean teamJoin = selected.stream().anyMatch(MemberField::isTeamJoin);
+
+		JPAQuery<Tuple> query = queryFactory
+			.select(selected.stream().map(MemberField::getPath).toArray(Expression[]::new))
+			.from(member);
+		if (teamJoin) {
+			query.leftJoin(member.team, team);
+		}
+		List<Tuple> fetched = query
+			.where(denormalizedSearchPredicates(condition))
+			.orderBy(member.id.asc())
+			.limit(maxRows + 1)
+			.fetch();
+
+		List<Map<String, Object>> rows = new ArrayList<>(fetched.size());
+		for (Tuple tuple : fetched) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			for (MemberField field : selected) {
+				row.put(field.name(), tuple.get(field.getPath()));
+			}
+			rows.add(row);
+		}
+		return SearchResult.of(rows, maxRows);
+	}
+
+	// >> 64. 역정규화한 member.teamName 으로 조회 (team 조인 없음)
+	// member.team.id 는 member 테이블의 FK(team_id) 로 바로 읽히기 때문에 조인이 생기지 않는다.
+	@Override
+	public List<MemberTeamDto> searchDenormalized(MemberSearchCondition condition) {
+		return queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				member.team.id.as("teamId"),
+				member.teamName))
+			.from(member)
+			.where(denormalizedSearchPredicates(condition))
+			.fetch();
+	}
+
+	// >> 64. 팀 이름 변경 시 member.teamName 도 벌크로 맞춰준다.
+	// 벌크 연산은 영속성 컨텍스트를 무시하기 때문에 끝나면 초기화한다. (>> 37 참고)
+	// 팀 자체는 변경 감지로 바꿔서 변경 이벤트(>> 75)가 남게 한다. (한 건이라 벌크로 할 이유가 없음)
+	@Override
+	public long renameTeam(Long teamId, String name) {
+		Team target = em.find(Team.class, teamId);
+		if (target == null) {
+			return 0;
+		}
+		target.rename(name);
+		em.flush();
+
+		long count = queryFactory
+			.update(member)
+			.set(member.teamName, name)
+			.set(member.lastModifiedDate, LocalDateTime.now())	// >> 76. 벌크 연산은 auditing 이 안 됨
+			.where(member.team.id.eq(teamId))
+			.execute();
+
+		em.clear();
+		return count;
+	}
+
+	// >> 76. 변경분 동기화
+	// 수정 시각(lastModifiedDate)은 커밋이 아니라 flush 때 찍혀서, 오래 걸린 트랜잭션의 변경은 시각 커서로는 영영 건너뛸 수 있다.
+	// 그래서 커밋 직전에 기록되는 변경 이벤트(>> 75)의 seq 를 커서로 쓴다. (seq 는 커밋 순서대로 매겨진다)
+	// - 회원 이벤트는 그 시점의 값으로, 삭제는 deleted = true 로 내려준다.
+	// - 팀 이름 변경은 그 팀 회원 전체를 현재 값으로 다시 내려준다.
+	// - 보관 기간이 지나 지워진 구간부터 이어 받으려고 하면 빠진 변경이 있으니 처음부터 다시 받게 한다.
+	@Override
+	public MemberChangesDto findChangedAfter(Long afterSeq, int limit) {
+		if (afterSeq == null) {
+			// 처음 받는 쪽: 이 위치를 먼저 받아두고 전체를 읽은 뒤 여기서부터 이어 받는다.
+			return new MemberChangesDto(Collections.emptyList(), changeFeed.lastSequence());
+		}
+		if (afterSeq < changeFeed.purgedUpTo()) {
+			throw new IllegalArgumentException("보관 기간이 지난 변경분입니다. 전체를 다시 받은 뒤 이어 받으세요.");
+		}
+
+		List<ChangeEventDto> events = changeFeed.read(afterSeq, limit);
+		List<MemberChangeDto> changes = new ArrayList<>();
+		for (ChangeEventDto event : events) {
+			if (ChangeEventDto.MEMBER.equals(event.getEntityType())) {
+				changes.add(new MemberChangeDto(event.getSeq(), event.getEntityId(), event.getUsername(),
+					event.getAge() != null ? event.getAge() : 0, event.getTeamId(), event.getTeamName(),
+					ChangeEventDto.DELETE.equals(event.getOperation())));
+			} else if (ChangeEventDto.TEAM.equals(event.getEntityType())
+				&& ChangeEventDto.UPDATE.equals(event.getOperation())) {
+				for (MemberTeamDto m : teamMembers(event.getEntityId())) {
+					changes.add(new MemberChangeDto(event.getSeq(), m.getMemberId(), m.getUsername(), m.getAge(),
+						m.getTeamId(), m.getTeamName(), false));
+				}
+			}
+		}
+		long next = events.isEmpty() ? afterSeq : events.get(events.size() - 1).getSeq();
+		return new MemberChangesDto(changes, next);
+	}
+
+	@Override
+	public MemberChangesDto findChangedSince(LocalDateTime since, int limit) {
+		Long afterSeq = changeFeed.sequenceBefore(since);
+		if (afterSeq == null) {
+			throw new IllegalArgumentException("보관 기간이 지난 변경분입니다. 전체를 다시 받은 뒤 이어 받으세요.");
+		}
+		return findChangedAfter(afterSeq, limit);
+	}
+
+	private List<MemberTeamDto> teamMembers(Long teamId) {
+		return queryFactory
+			.select(new QMemberTeamDto(
+				member.id,
+				member.username,
+				member.age,
+				member.team.id,
+				member.teamName))
+			.from(member)
+			.where(member.team.id.eq(teamId))
+			.orderBy(member.id.asc())
 			.fetch();
 	}
 
@@ -62,12 +271,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 				team.name.as("teamName")))
 			.from(member)
 			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			)
+			.where(searchPredicates(condition))
+			.orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
 			.offset(pageable.getOffset())        // 몇 번째부터 시작
 			.limit(pageable.getPageSize())        // 한 페이지에 몇개씩 ?
 			.fetchResults();// fetchResults를 쓰면 querydsl이 content, count쿼리를 날려줌
@@ -92,12 +297,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 				team.name.as("teamName")))
 			.from(member)
 			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			)
+			.where(searchPredicates(condition))
+			.orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
 			.offset(pageable.getOffset())        // 몇 번째부터 시작
 			.limit(pageable.getPageSize())        // 한 페이지에 몇개씩 ?
 			.fetch(); // complex의 경우 content 그대로 뽑는다.
@@ -110,34 +311,155 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 			.select(member)
 			.from(member)
 			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			)
+			.where(searchPredicates(condition))
 			.fetchCount();
 
 		return new PageImpl<>(content, pageable, total);
 	}
 
+	// >> 63. 추정 count 페이징
+	// 조건이 넓으면 count 쿼리가 조인 전체를 스캔한다.
+	// 먼저 limit(threshold + 1) 로 가볍게 세어보고
+	// - threshold 이하면 그 결과가 곧 정확한 count
+	// - 넘으면 조건에 맞는 추정치를 쓴다. (EstimatedPage.TotalType)
+	//   조건 없음: DB 통계의 테이블 행 수 / 팀 조건만: 팀 통계(>> 72)의 회원 수 합
+	//   그 외: 조건을 반영한 추정치가 없으니 총 건수 대신 "threshold 건 이상"만 알려준다. (테이블 전체 행 수는 조건과 상관없어서 쓰지 않는다)
+	@Override
+	public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+		List<MemberTeamDto> content = queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")))
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(searchPredicates(condition))
+			.orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
+			.offset(pageable.getOffset())
+			.limit(pageable.getPageSize())
+			.fetch();
+
+		long probe = queryFactory
+			.select(member.id)
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(searchPredicates(condition))
+			.limit(exactCountThreshold + 1)
+			.fetch()
+			.size();
+
+		if (probe <= exactCountThreshold) {
+			return new EstimatedPage<>(content, pageable, probe, EstimatedPage.TotalType.EXACT);
+		}
+
+		if (isUnfiltered(condition)) {
+			Long estimate = estimateMemberCount();
+			if (estimate != null) {
+				return new EstimatedPage<>(content, pageable, Math.max(estimate, probe), EstimatedPage.TotalType.ESTIMATE);
+			}
+		} else if (isTeamOnly(condition)) {
+			List<String> teamNames = StringUtils.hasText(condition.getTeamName())
+				? Collections.singletonList(condition.getTeamName())
+				: InPredicates.distinct(condition.getTeamNames());
+			Long estimate = queryFactory
+				.select(teamStats.memberCount.sum())
+				.from(teamStats)
+				.join(team).on(team.id.eq(teamStats.teamId))
+				.where(team.name.in(teamNames))
+				.fetchOne();
+			if (estimate != null) {
+				// 벌크 연산은 팀 통계에 반영되지 않으니 추정치다.
+				return new EstimatedPage<>(content, pageable, Math.max(estimate, probe), EstimatedPage.TotalType.ESTIMATE);
+			}
+		}
+		return new EstimatedPage<>(content, pageable, probe, EstimatedPage.TotalType.AT_LEAST);
+	}
+
+	private static boolean isUnfiltered(MemberSearchCondition condition) {
+		return isTeamUnfiltered(condition)
+			&& !StringUtils.hasText(condition.getTeamName())
+			&& InPredicates.distinct(condition.getTeamNames()).isEmpty();
+	}
 
-	// predicate 보다는 BooleanExpression으로 할 것
-	private BooleanExpression usernameEq(String username) {
-		return StringUtils.hasText(username) ? member.username.eq(username) : null;
+	// 팀 이름(teamName 또는 teamNames 중 하나)만 조건으로 들어왔는지
+	private static boolean isTeamOnly(MemberSearchCondition condition) {
+		boolean single = StringUtils.hasText(condition.getTeamName());
+		boolean multiple = !InPredicates.distinct(condition.getTeamNames()).isEmpty();
+		return isTeamUnfiltered(condition) && single != multiple;
 	}
 
-	private BooleanExpression teamNameEq(String teamName) {
-		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+	private static boolean isTeamUnfiltered(MemberSearchCondition condition) {
+		return !StringUtils.hasText(condition.getUsername())
+			&& !StringUtils.hasText(condition.getUsernamePrefix())
+			&& InPredicates.distinct(condition.getUsernames()).isEmpty()
+			&& InPredicates.distinct(condition.getMemberIds()).isEmpty()
+			&& condition.getAgeGoe() == null
+			&& condition.getAgeLoe() == null;
+	}
 
+	private Long estimateMemberCount() {
+		try {
+			return jdbcTemplate.queryForObject(countEstimateSql, Long.class);
+		} catch (DataAccessException e) {
+			return null;
+		}
 	}
 
-	private BooleanExpression ageGoe(Integer ageGoe) {
-		return ageGoe != null ? member.age.goe(ageGoe) : null;
+	// >> 62. keyset 페이징 (offset 대신 마지막 행 다음부터 조회)
+	// offset이 커질수록 앞의 행을 모두 읽고 버리기 때문에 느려진다.
+	// 마지막 행의 정렬 값을 조건으로 걸면 인덱스에서 바로 이어서 읽을 수 있다.
+	// count 쿼리 없이 limit + 1 로 다음 페이지 존재 여부만 판단한다.
+	@Override
+	public Slice<MemberTeamDto> searchSliceAfter(MemberSearchCondition condition, MemberTeamDto last, Pageable pageable) {
+		List<MemberTeamDto> content = queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")))
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(searchPredicates(condition))
+			.where(after(last, pageable.getSort()))
+			.orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
+			.limit(pageable.getPageSize() + 1)
+			.fetch();
+
+		boolean hasNext = content.size() > pageable.getPageSize();
+		if (hasNext) {
+			content = content.subList(0, pageable.getPageSize());
+		}
+		return new SliceImpl<>(content, pageable, hasNext);
 	}
 
-	private BooleanExpression ageLoe(Integer ageLoe) {
-		return ageLoe != null ? member.age.loe(ageLoe) : null;
+
+	// (a > :a) or (a = :a and b > :b) or ... 형태로 정렬 순서상 last 다음 행들을 찾는다.
+	// 정렬 값이 null 이면 is null / is not null 로 바꾼다. (MemberSort 참고, null 은 가장 큰 값)
+	private BooleanExpression after(MemberTeamDto last, Sort sort) {
+		if (last == null) {
+			return null;
+		}
+		List<Sort.Order> orders = MemberSort.ordersOf(sort);
+		BooleanExpression result = null;
+		for (int i = orders.size() - 1; i >= 0; i--) {
+			Sort.Order order = orders.get(i);
+			MemberSort memberSort = MemberSort.of(order.getProperty());
+			Object value = memberSort.valueOf(last);
+			if (value == null && memberSort == MemberSort.MEMBER_ID) {
+				throw new IllegalArgumentException("keyset 정렬 값이 비어 있습니다: " + order.getProperty());
+			}
+			BooleanExpression next = memberSort.after(value, order.isAscending());
+			if (result == null) {
+				result = next;
+			} else {
+				BooleanExpression same = memberSort.sameAs(value).and(result);
+				result = next == null ? same : next.or(same);
+			}
+		}
+		return result;
 	}
 
 
@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// >> 61. Pageable의 Sort -> querydsl OrderSpecifier 변환
+// 인덱스가 있는 컬럼만 허용한다. (그 외 컬럼으로 정렬하면 대용량에서 filesort 발생)
+// 마지막에는 항상 member.id 를 붙여서 같은 값이 있어도 순서가 흔들리지 않게 한다. (keyset 페이징의 조건)
+// id 는 마지막 정렬 조건과 같은 방향으로 붙인다. (age desc, id desc) 는 (age, id) 인덱스를 거꾸로 읽으면 되지만
+// (age desc, id asc) 는 인덱스 순서로 읽을 수 없어서 filesort 가 생긴다.
+// null 은 가장 큰 값으로 본다. (asc 는 nulls last, desc 는 nulls first) 팀이 없는 회원의 teamName 이 null 이다.
+enum MemberSort {
+
+	MEMBER_ID("memberId", member.id, MemberTeamDto::getMemberId),
+	USERNAME("username", member.username, MemberTeamDto::getUsername),
+	AGE("age", member.age, MemberTeamDto::getAge),
+	TEAM_NAME("teamName", team.name, MemberTeamDto::getTeamName);
+
+	private final String property;
+	private final ComparableExpressionBase<?> path;
+	private final Function<MemberTeamDto, Object> value;
+
+	MemberSort(String property, ComparableExpressionBase<?> path, Function<MemberTeamDto, Object> value) {
+		this.property = property;
+		this.path = path;
+		this.value = value;
+	}
+
+	ComparableExpressionBase<?> getPath() {
+		return path;
+	}
+
+	Object valueOf(MemberTeamDto dto) {
+		return value.apply(dto);
+	}
+
+	static MemberSort of(String property) {
+		for (MemberSort sort : values()) {
+			if (sort.property.equals(property)) {
+				return sort;
+			}
+		}
+		// 허용되지 않은 정렬 조건은 조용히 무시하지 않고 거절한다.
+		throw new IllegalArgumentException("정렬할 수 없는 필드입니다: " + property);
+	}
+
+	/**
+	 * 정렬 조건 목록 (member.id 가 tie-breaker 로 마지막 정렬 조건과 같은 방향으로 항상 마지막에 들어간다)
+	 */
+	static List<Sort.Order> ordersOf(Sort sort) {
+		List<Sort.Order> orders = new ArrayList<>();
+		boolean hasId = false;
+		Sort.Direction direction = Sort.Direction.ASC;
+		for (Sort.Order order : sort) {
+			MemberSort memberSort = of(order.getProperty());
+			orders.add(order);
+			direction = order.getDirection();
+			if (memberSort == MEMBER_ID) {
+				hasId = true;
+				break;	// id는 유일하니까 그 뒤의 정렬 조건은 의미가 없다.
+			}
+		}
+		if (!hasId) {
+			orders.add(new Sort.Order(direction, MEMBER_ID.property));
+		}
+		return orders;
+	}
+
+	static OrderSpecifier<?>[] toOrderSpecifiers(Sort sort) {
+		return ordersOf(sort).stream()
+			.map(order -> order.isAscending()
+				? of(order.getProperty()).getPath().asc().nullsLast()
+				: of(order.getProperty()).getPath().desc().nullsFirst())
+			.toArray(OrderSpecifier[]::new);
+	}
+
+	// keyset: 정렬 순서상 value 보다 뒤에 오는 행 (null 은 가장 큰 값). 없으면 null
+	BooleanExpression after(Object value, boolean ascending) {
+		if (value == null) {
+			return ascending ? null : path.isNotNull();
+		}
+		Expression<?> constant = Expressions.constant(value);
+		BooleanExpression next = Expressions.predicate(ascending ? Ops.GT : Ops.LT, path, constant);
+		return ascending ? next.or(path.isNull()) : next;
+	}
+
+	// keyset: value 와 같은 값
+	BooleanExpression sameAs(Object value) {
+		return value == null
+			? path.isNull()
+			: Expressions.predicate(Ops.EQ, path, Expressions.constant(value));
+	}
+}
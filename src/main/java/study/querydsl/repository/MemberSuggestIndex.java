@@ -0,0 +1,423 @@
+package study.querydsl.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.entity.Member;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// >> 85. username 자동완성용 trigram 색인 (메모리)
+// 키 입력마다 like '%q%' 로 member 테이블을 훑지 않고 메모리 색인에서 바로 찾는다.
+// - 서로 다른 username 만 사전(dictionary)에 한 번씩 넣고 int 코드로 다룬다. (같은 이름의 회원 수는 refCount)
+// - 소문자로 바꾼 이름의 3글자 조각(trigram)마다 코드 목록(postings)을 int 배열로 들고 있다.
+//   코드는 늘어나기만 하니까 뒤에 붙이면 항상 정렬된 상태다.
+// - 이름 앞에 시작 표시(START)를 붙여서 색인하기 때문에 1 ~ 2 글자 입력은 앞부분 일치로 찾는다.
+//   가장 자주 들어오는 입력인데 그 글자로 시작하는 이름 전체를 훑지 않도록, 1 ~ 2 글자 앞부분마다
+//   순위(짧은 것, 이름 순) 상위 MAX_LIMIT 개를 미리 정렬해 두고(topByPrefix) 앞에서 limit 개만 꺼낸다.
+//   회원이 없어진 이름이 상위 목록에 있었으면 그 앞부분만 postings 를 훑어서 다시 채운다. (쓰기 쪽 비용)
+// - 3 글자 이상은 모든 trigram 의 postings 교집합을 구한 뒤 실제로 포함하는지 다시 확인한다.
+// - 회원이 없어진 이름은 postings 에서 바로 지우지 않고 refCount 가 0 인 것만 건너뛴다.
+//   그런 이름이 남아 있으면 주기적으로(compact) 남은 회원의 이름만으로 사전과 postings 를 다시 만든다.
+// member.suggest.enabled=true 일 때만 만들어지며, 스냅샷(>> 73)처럼 시작 시 전체를 읽고 이후는 변경 이벤트(>> 75)로 반영한다.
+@Component
+@ConditionalOnProperty(name = "member.suggest.enabled", havingValue = "true")
+public class MemberSuggestIndex implements ChangeFeedConsumer {
+
+	public static final int MAX_LIMIT = 50;	// 한 번에 돌려주는 최대 개수 (1 ~ 2 글자 상위 목록 크기)
+
+	private static final char START = '\u0001';
+	private static final Postings EMPTY = new Postings();
+	private static final int[] NO_CODES = new int[0];
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ChangeFeed changeFeed;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final List<String> names = new ArrayList<>();
+	private final List<String> lowerNames = new ArrayList<>();
+	private final Map<String, Integer> codeByName = new HashMap<>();
+	private final Map<Long, Integer> codeByMemberId = new HashMap<>();
+	private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+	private final Map<Long, int[]> topByPrefix = new HashMap<>();	// 앞부분 trigram -> 순위순 코드 (살아 있는 이름만)
+	private int[] refCounts = new int[0];
+	private volatile Long rebuiltAfter;	// rebuild 직전의 마지막 변경 이벤트 seq
+
+	public MemberSuggestIndex(DataSource dataSource, ChangeFeed changeFeed) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+		this.changeFeed = changeFeed;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			// 읽는 도중에 커밋된 변경은 이벤트로 한 번 더 들어오지만 같은 값으로 다시 반영될 뿐이다.
+			long lastSeq = changeFeed.lastSequence();
+			clear();
+			jdbcTemplate.query("select member_id, username from member",
+				rs -> put(rs.getLong(1), rs.getString(2)));
+			rebuiltAfter = lastSeq;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "memberSuggestIndex";
+	}
+
+	// 메모리에만 있으니 체크포인트는 저장하지 않고, rebuild 시점부터 이어 받는다. (rebuild 전이면 null)
+	@Override
+	public Long startAfter() {
+		return rebuiltAfter;
+	}
+
+	@Override
+	public boolean isDurable() {
+		return false;
+	}
+
+	@Override
+	public void onChanges(List<ChangeEventDto> events) {
+		for (ChangeEventDto event : events) {
+			if (!ChangeEventDto.MEMBER.equals(event.getEntityType())) {
+				continue;
+			}
+			if (ChangeEventDto.DELETE.equals(event.getOperation())) {
+				delete(event.getEntityId());
+			} else {
+				upsert(event.getEntityId(), event.getUsername());
+			}
+		}
+	}
+
+	// 추가 또는 username 변경
+	public void upsert(long memberId, String username) {
+		lock.writeLock().lock();
+		try {
+			put(memberId, username);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void delete(long memberId) {
+		lock.writeLock().lock();
+		try {
+			Integer code = codeByMemberId.remove(memberId);
+			if (code != null) {
+				release(code);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 대소문자 무시. 앞부분이 일치하는 것, 짧은 것, 이름 순으로 limit 개 (최대 MAX_LIMIT)
+	// - q 가 1 ~ 2 글자면 q 로 시작하는 username 만 (trigram 이 없어서 포함 여부는 찾지 않는다)
+	// - 3 글자 이상이면 q 를 포함하는 username
+	public List<String> suggest(String q, int limit) {
+		if (q == null || q.isEmpty() || limit <= 0) {
+			return Collections.emptyList();
+		}
+		String query = Member.normalizeUsername(q);
+		limit = Math.min(limit, MAX_LIMIT);
+		lock.readLock().lock();
+		try {
+			if (query.length() < 3) {
+				int[] top = topByPrefix.getOrDefault(prefixTrigram(query), NO_CODES);
+				List<String> result = new ArrayList<>(Math.min(limit, top.length));
+				for (int i = 0; i < top.length && i < limit; i++) {
+					result.add(names.get(top[i]));
+				}
+				return result;
+			}
+
+			Postings[] lists = postingsOf(query);
+			if (lists == null) {
+				return Collections.emptyList();
+			}
+			// 가장 짧은 목록을 기준으로 나머지는 이진 탐색
+			Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+			Comparator<Integer> rank = rank(query);
+			PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, rank.reversed());
+			candidates:
+			for (int n = 0; n < lists[0].size; n++) {
+				int code = lists[0].codes[n];
+				if (refCounts[code] == 0) {
+					continue;
+				}
+				for (int i = 1; i < lists.length; i++) {
+					if (!lists[i].contains(code)) {
+						continue candidates;
+					}
+				}
+				if (!lowerNames.get(code).contains(query)) {
+					continue;	// trigram 은 모두 있지만 이어져 있지 않음
+				}
+				top.offer(code);
+				if (top.size() > limit) {
+					top.poll();
+				}
+			}
+
+			List<Integer> codes = new ArrayList<>(top);
+			codes.sort(rank);
+			List<String> result = new ArrayList<>(codes.size());
+			for (int code : codes) {
+				result.add(names.get(code));
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// 회원이 없어진 이름이 있으면 남은 회원의 이름만으로 다시 만든다. (DB 는 다시 읽지 않는다)
+	@Scheduled(fixedDelayString = "${member.suggest.compact-interval:600000}")
+	public void compact() {
+		lock.writeLock().lock();
+		try {
+			int dead = 0;
+			for (int code = 0; code < names.size(); code++) {
+				if (refCounts[code] == 0) {
+					dead++;
+				}
+			}
+			if (dead == 0) {
+				return;
+			}
+			Map<Long, String> live = new HashMap<>(codeByMemberId.size() * 2);
+			codeByMemberId.forEach((memberId, code) -> live.put(memberId, names.get(code)));
+			clear();
+			live.forEach(this::put);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 색인된 서로 다른 username 수 (회원이 없어진 이름 포함, compact 하면 줄어든다)
+	public int dictionarySize() {
+		lock.readLock().lock();
+		try {
+			return names.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// 색인된 회원 수
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return codeByMemberId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Comparator<Integer> rank(String query) {
+		return Comparator.<Integer>comparingInt(code -> lowerNames.get(code).startsWith(query) ? 0 : 1)
+			.thenComparingInt(code -> names.get(code).length())
+			.thenComparing(names::get);
+	}
+
+	// q 의 모든 trigram 의 postings. 하나라도 없으면 null
+	private Postings[] postingsOf(String query) {
+		Postings[] lists = new Postings[query.length() - 2];
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			Postings list = postings(trigram(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2)));
+			if (list.size == 0) {
+				return null;
+			}
+			lists[i] = list;
+		}
+		return lists;
+	}
+
+	private Postings postings(long trigram) {
+		return postingsByTrigram.getOrDefault(trigram, EMPTY);
+	}
+
+	private void put(long memberId, String username) {
+		Integer previous = codeByMemberId.get(memberId);
+		if (previous != null && names.get(previous).equals(username)) {
+			return;	// username 은 그대로 (나이, 팀 변경)
+		}
+		if (previous != null) {
+			codeByMemberId.remove(memberId);
+			release(previous);
+		}
+		if (username == null) {
+			return;
+		}
+		int code = code(username);
+		codeByMemberId.put(memberId, code);
+		if (refCounts[code]++ == 0) {
+			for (long prefix : prefixes(code)) {
+				offerTop(prefix, code);
+			}
+		}
+	}
+
+	// 이 이름의 회원이 더 없으면 상위 목록에서 빼고 그 앞부분의 목록을 다시 채운다.
+	private void release(int code) {
+		if (--refCounts[code] > 0) {
+			return;
+		}
+		for (long prefix : prefixes(code)) {
+			int[] top = topByPrefix.get(prefix);
+			if (top != null && indexOf(top, code) >= 0) {
+				refillTop(prefix);
+			}
+		}
+	}
+
+	// 살아 있는 이름이 생겼을 때: 상위 목록에 들 순위면 자리에 끼워 넣는다.
+	private void offerTop(long prefix, int code) {
+		int[] top = topByPrefix.getOrDefault(prefix, NO_CODES);
+		Comparator<Integer> rank = shortRank();
+		int at = top.length;
+		while (at > 0 && rank.compare(code, top[at - 1]) < 0) {
+			at--;
+		}
+		if (at >= MAX_LIMIT) {
+			return;
+		}
+		int[] next = new int[Math.min(top.length + 1, MAX_LIMIT)];
+		System.arraycopy(top, 0, next, 0, at);
+		next[at] = code;
+		System.arraycopy(top, at, next, at + 1, next.length - at - 1);
+		topByPrefix.put(prefix, next);
+	}
+
+	private void refillTop(long prefix) {
+		Postings list = postings(prefix);
+		PriorityQueue<Integer> top = new PriorityQueue<>(MAX_LIMIT + 1, shortRank().reversed());
+		for (int n = 0; n < list.size; n++) {
+			int code = list.codes[n];
+			if (refCounts[code] == 0) {
+				continue;
+			}
+			top.offer(code);
+			if (top.size() > MAX_LIMIT) {
+				top.poll();
+			}
+		}
+		List<Integer> codes = new ArrayList<>(top);
+		codes.sort(shortRank());
+		if (codes.isEmpty()) {
+			topByPrefix.remove(prefix);
+		} else {
+			topByPrefix.put(prefix, codes.stream().mapToInt(Integer::intValue).toArray());
+		}
+	}
+
+	// 1 ~ 2 글자 입력에서는 모두 앞부분이 일치하니 짧은 것, 이름 순
+	private Comparator<Integer> shortRank() {
+		return Comparator.<Integer>comparingInt(code -> names.get(code).length())
+			.thenComparing(names::get);
+	}
+
+	// 이 이름이 걸리는 1 글자, 2 글자 앞부분
+	private long[] prefixes(int code) {
+		String lower = lowerNames.get(code);
+		if (lower.isEmpty()) {
+			return new long[0];
+		}
+		return lower.length() == 1
+			? new long[]{prefixTrigram(lower)}
+			: new long[]{prefixTrigram(lower.substring(0, 1)), prefixTrigram(lower.substring(0, 2))};
+	}
+
+	private static int indexOf(int[] codes, int code) {
+		for (int i = 0; i < codes.length; i++) {
+			if (codes[i] == code) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int code(String username) {
+		Integer code = codeByName.get(username);
+		if (code != null) {
+			return code;
+		}
+		int newCode = names.size();
+		String lower = Member.normalizeUsername(username);
+		names.add(username);
+		lowerNames.add(lower);
+		codeByName.put(username, newCode);
+		if (newCode == refCounts.length) {
+			refCounts = Arrays.copyOf(refCounts, Math.max(16, newCode * 2));
+		}
+
+		String padded = "" + START + START + lower;
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			postingsByTrigram.computeIfAbsent(trigram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)),
+				key -> new Postings()).add(newCode);
+		}
+		return newCode;
+	}
+
+	private void clear() {
+		names.clear();
+		lowerNames.clear();
+		codeByName.clear();
+		codeByMemberId.clear();
+		postingsByTrigram.clear();
+		topByPrefix.clear();
+		refCounts = new int[0];
+	}
+
+	// 1 ~ 2 글자 입력은 이름 맨 앞의 trigram 으로 찾는다. ("a" -> START START a, "ab" -> START a b)
+	private static long prefixTrigram(String query) {
+		return query.length() == 1
+			? trigram(START, START, query.charAt(0))
+			: trigram(START, query.charAt(0), query.charAt(1));
+	}
+
+	private static long trigram(char a, char b, char c) {
+		return ((long) a << 32) | ((long) b << 16) | c;
+	}
+
+	// 정렬된 int 코드 목록 (같은 이름에 같은 trigram 이 여러 번 있어도 한 번만 넣는다)
+	private static class Postings {
+
+		private int[] codes = new int[4];
+		private int size;
+
+		void add(int code) {
+			if (size > 0 && codes[size - 1] == code) {
+				return;
+			}
+			if (size == codes.length) {
+				codes = Arrays.copyOf(codes, size * 2);
+			}
+			codes[size++] = code;
+		}
+
+		boolean contains(int code) {
+			return Arrays.binarySearch(codes, 0, size, code) >= 0;
+		}
+	}
+}
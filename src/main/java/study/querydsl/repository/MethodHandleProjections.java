@@ -0,0 +1,216 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// >> 70. 리플렉션 없이 DTO 를 만드는 프로젝션 (Projections.bean / fields / constructor 대체)
+// Projections.* 는 행마다 리플렉션으로 생성자, setter, 필드를 호출한다.
+// 여기서는 DTO 클래스 + 필드 구성별로 MethodHandle 을 한 번만 만들어 캐시하고 행마다 그 핸들만 호출한다.
+// 리플렉션 대비 비용은 ./gradlew projectionBenchmark 로 잰다. (ProjectionBenchmark)
+// @QueryProjection 처럼 DTO 가 querydsl 에 의존하지 않아도 된다.
+public final class MethodHandleProjections {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+	private static final MethodType NEW_TYPE = MethodType.methodType(Object.class);
+	private static final MethodType SET_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final Map<List<Object>, Instantiator> CACHE = new ConcurrentHashMap<>();
+
+	private MethodHandleProjections() {
+	}
+
+	// 생성자 (인자 순서와 타입으로 매칭)
+	public static <T> MethodHandleProjection<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+		List<Object> key = key("constructor", type, exprs);
+		return new MethodHandleProjection<>(type, exprs,
+			CACHE.computeIfAbsent(key, k -> constructorInstantiator(type, exprs)));
+	}
+
+	// 기본 생성자 + setter (alias 또는 필드명으로 매칭)
+	public static <T> MethodHandleProjection<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+		List<Object> key = key("bean", type, exprs);
+		return new MethodHandleProjection<>(type, exprs,
+			CACHE.computeIfAbsent(key, k -> setterInstantiator(type, exprs, false)));
+	}
+
+	// 기본 생성자 + 필드 직접 대입 (getter, setter 필요 없음)
+	public static <T> MethodHandleProjection<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+		List<Object> key = key("fields", type, exprs);
+		return new MethodHandleProjection<>(type, exprs,
+			CACHE.computeIfAbsent(key, k -> setterInstantiator(type, exprs, true)));
+	}
+
+	// 생성자는 인자 타입으로만 고르니까 타입만, bean / fields 는 이름으로 대입하니까 이름과 타입을 키로 쓴다.
+	// (생성자 인자에는 이름 없는 expression 도 올 수 있다. 예: member.age.add(1))
+	private static List<Object> key(String kind, Class<?> type, Expression<?>[] exprs) {
+		boolean byName = !"constructor".equals(kind);
+		List<Object> key = new ArrayList<>(exprs.length * 2 + 2);
+		key.add(kind);
+		key.add(type);
+		for (Expression<?> expr : exprs) {
+			if (byName) {
+				key.add(nameOf(expr));
+			}
+			key.add(expr.getType());
+		}
+		return key;
+	}
+
+	private static Instantiator constructorInstantiator(Class<?> type, Expression<?>[] exprs) {
+		Constructor<?> constructor = Arrays.stream(type.getDeclaredConstructors())
+			.filter(c -> matches(c.getParameterTypes(), exprs))
+			.findFirst()
+			.orElseThrow(() -> new IllegalArgumentException(type.getName() + " 에 맞는 생성자가 없습니다."));
+		try {
+			ReflectionUtils.makeAccessible(constructor);
+			MethodHandle handle = LOOKUP.unreflectConstructor(constructor)
+				.asSpreader(Object[].class, exprs.length)
+				.asType(SPREAD_TYPE);
+			return args -> (Object) handle.invokeExact(args);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private static boolean matches(Class<?>[] parameterTypes, Expression<?>[] exprs) {
+		if (parameterTypes.length != exprs.length) {
+			return false;
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (!ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]).isAssignableFrom(exprs[i].getType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Instantiator setterInstantiator(Class<?> type, Expression<?>[] exprs, boolean fieldAccess) {
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(constructor);
+			MethodHandle create = LOOKUP.unreflectConstructor(constructor).asType(NEW_TYPE);
+
+			MethodHandle[] setters = new MethodHandle[exprs.length];
+			for (int i = 0; i < exprs.length; i++) {
+				setters[i] = (fieldAccess ? fieldSetter(type, nameOf(exprs[i])) : methodSetter(type, nameOf(exprs[i])))
+					.asType(SET_TYPE);
+			}
+
+			return args -> {
+				Object bean = (Object) create.invokeExact();
+				for (int i = 0; i < setters.length; i++) {
+					// Projections.bean 과 같이 null 은 건너뛴다. (primitive 필드에 null 을 넣을 수 없음)
+					if (args[i] != null) {
+						setters[i].invokeExact(bean, args[i]);
+					}
+				}
+				return bean;
+			};
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getName() + " 에 기본 생성자가 없습니다.", e);
+		}
+	}
+
+	private static MethodHandle methodSetter(Class<?> type, String name) throws IllegalAccessException {
+		String setterName = "set" + StringUtils.capitalize(name);
+		Method setter = Arrays.stream(ReflectionUtils.getAllDeclaredMethods(type))
+			.filter(m -> m.getName().equals(setterName) && m.getParameterCount() == 1)
+			.findFirst()
+			.orElseThrow(() -> new IllegalArgumentException(type.getName() + " 에 " + setterName + " 이 없습니다."));
+		ReflectionUtils.makeAccessible(setter);
+		return LOOKUP.unreflect(setter);
+	}
+
+	private static MethodHandle fieldSetter(Class<?> type, String name) throws IllegalAccessException {
+		Field field = ReflectionUtils.findField(type, name);
+		if (field == null) {
+			throw new IllegalArgumentException(type.getName() + " 에 " + name + " 필드가 없습니다.");
+		}
+		ReflectionUtils.makeAccessible(field);
+		return LOOKUP.unreflectSetter(field);
+	}
+
+	// member.username -> username, member.username.as("name") -> name
+	private static String nameOf(Expression<?> expr) {
+		if (expr instanceof Path) {
+			return ((Path<?>) expr).getMetadata().getName();
+		}
+		if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+			return ((Path<?>) ((Operation<?>) expr).getArg(1)).getMetadata().getName();
+		}
+		throw new IllegalArgumentException("이름을 알 수 없는 expression 입니다. as() 로 이름을 붙여주세요: " + expr);
+	}
+
+	@FunctionalInterface
+	private interface Instantiator {
+		Object create(Object[] args) throws Throwable;
+	}
+
+	public static final class MethodHandleProjection<T> extends FactoryExpressionBase<T> {
+
+		private final List<Expression<?>> args;
+		private final Instantiator instantiator;
+
+		private MethodHandleProjection(Class<? extends T> type, Expression<?>[] args, Instantiator instantiator) {
+			super(type);
+			this.args = Collections.unmodifiableList(Arrays.asList(args.clone()));
+			this.instantiator = instantiator;
+		}
+
+		@Override
+		public List<Expression<?>> getArgs() {
+			return args;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T newInstance(Object... a) {
+			try {
+				return (T) instantiator.create(a);
+			} catch (Throwable e) {
+				throw new ExpressionException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public <R, C> R accept(Visitor<R, C> v, C context) {
+			return v.visit(this, context);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof MethodHandleProjection)) {
+				return false;
+			}
+			MethodHandleProjection<?> other = (MethodHandleProjection<?>) obj;
+			return getType().equals(other.getType())
+				&& args.equals(other.args)
+				&& instantiator == other.instantiator;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringPath;
+
+// >> 84. 앞부분 일치 검색을 범위 조건으로 바꾼다.
+// like 'abc%' 는 DB 가 패턴을 보고 범위로 바꿔줘야 인덱스를 타는데, 바인드 파라미터(like ?)면 못 바꾸는 경우가 있다.
+// 처음부터 username >= 'abc' and username < 'abd' 로 보내면 어디서든 인덱스 범위 스캔이 된다.
+// (DB 정렬 순서가 자바 문자 순서와 같아야 한다. H2 기본 설정, 소문자로 정규화한 username_lower 는 해당)
+final class PrefixRange {
+
+	private PrefixRange() {
+	}
+
+	static BooleanExpression of(StringPath path, String prefix) {
+		String upper = upperBound(prefix);
+		return upper == null ? path.goe(prefix) : path.goe(prefix).and(path.lt(upper));
+	}
+
+	// prefix 로 시작하는 모든 문자열보다 큰 가장 작은 값 (마지막 글자를 하나 올린다)
+	static String upperBound(String prefix) {
+		StringBuilder upper = new StringBuilder(prefix);
+		for (int i = upper.length() - 1; i >= 0; i--) {
+			char c = upper.charAt(i);
+			if (c < Character.MAX_VALUE) {
+				upper.setCharAt(i, (char) (c + 1));
+				upper.setLength(i + 1);
+				return upper.toString();
+			}
+		}
+		return null;	// 상한 없음
+	}
+}
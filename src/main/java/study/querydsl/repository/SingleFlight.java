@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// >> 66. 같은 조건의 동시 요청 합치기 (single-flight)
+// 같은 key 로 이미 실행 중인 쿼리가 있으면 새로 쿼리를 날리지 않고 그 결과를 같이 받는다.
+// ConcurrentHashMap 은 key 가 들어있는 버킷 단위로만 잠그기 때문에 서로 다른 key 끼리는 경합하지 않는다.
+// 주의: 결과 객체를 여러 요청이 같이 쓰기 때문에 받은 쪽에서 수정하면 안 된다.
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder executions = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	public V execute(K key, Supplier<V> loader) {
+		// 트랜잭션 안에서는 합치지 않는다.
+		// - 쓰기 트랜잭션은 아직 커밋 안 된 내 변경을 봐야 한다.
+		// - 읽기 전용 트랜잭션도 이미 커넥션을 잡고 있어서, 기다리는 동안 커넥션만 붙잡고 있게 된다.
+		//   트랜잭션 밖에서 합쳐야 하는 곳(/v1/members)은 CancellableQueryRunner 가 트랜잭션을 열기 전에 합친다.
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return loader.get();
+		}
+
+		CompletableFuture<V> created = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+		if (existing != null) {
+			coalesced.increment();
+			return await(existing);
+		}
+
+		executions.increment();
+		try {
+			V result = loader.get();
+			created.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, created);
+		}
+	}
+
+	private V await(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	public long getExecutions() {
+		return executions.sum();
+	}
+
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	// 합쳐진 요청 / 전체 요청
+	public double getCoalescingRatio() {
+		long total = getExecutions() + getCoalesced();
+		return total == 0 ? 0.0 : (double) getCoalesced() / total;
+	}
+
+	public SingleFlight<K, V> bindTo(MeterRegistry registry, String query) {
+		FunctionCounter.builder("member.search.coalescing.executions", this, SingleFlight::getExecutions)
+			.tag("query", query)
+			.description("실제로 DB 에 날린 조회 수")
+			.register(registry);
+		FunctionCounter.builder("member.search.coalescing.coalesced", this, SingleFlight::getCoalesced)
+			.tag("query", query)
+			.description("다른 요청의 결과를 같이 받은 조회 수")
+			.register(registry);
+		Gauge.builder("member.search.coalescing.ratio", this, SingleFlight::getCoalescingRatio)
+			.tag("query", query)
+			.register(registry);
+		return this;
+	}
+}
@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// >> 65. MemberPredicates 의 조건을 JDBC where 절로 옮긴다.
+// JDBC 조회(MemberJdbcRepository)가 조건을 따로 손으로 쓰면 JPA 쪽과 어긋나기 쉬워서,
+// 같은 BooleanExpression 을 받아 경로는 COLUMNS 의 컬럼으로, 상수는 이름 있는 파라미터로 바꾼다.
+// - 검색 조건에서 쓰는 연산(and, or, =, >=, <=, <, >, in)만 옮긴다. 그 밖의 것은 IllegalArgumentException
+// - 컬렉션 파라미터는 NamedParameterJdbcTemplate 가 ?, ?, ... 로 펼쳐준다.
+final class SqlPredicates {
+
+	// 엔티티 경로 -> 컬럼 (m = member, t = team)
+	private static final Map<Path<?>, String> COLUMNS = Map.of(
+		member.id, "m.member_id",
+		member.username, "m.username",
+		member.usernameLower, "m.username_lower",
+		member.age, "m.age",
+		member.teamName, "m.team_name",
+		team.id, "t.team_id",
+		team.name, "t.name");
+
+	private static final Map<Operator, String> COMPARISONS = Map.of(
+		Ops.EQ, " = ",
+		Ops.GOE, " >= ",
+		Ops.LOE, " <= ",
+		Ops.LT, " < ",
+		Ops.GT, " > ");
+
+	private SqlPredicates() {
+	}
+
+	// null 인 조건은 빼고 " and ..." 로 이어 붙인다. (where 의 varargs 와 같은 규칙)
+	static void where(StringBuilder sql, MapSqlParameterSource params, Predicate... predicates) {
+		for (Predicate predicate : predicates) {
+			if (predicate != null) {
+				sql.append(" and ");
+				append(sql, params, predicate);
+			}
+		}
+	}
+
+	private static void append(StringBuilder sql, MapSqlParameterSource params, Expression<?> expression) {
+		if (expression instanceof Path) {
+			String column = COLUMNS.get(expression);
+			if (column == null) {
+				throw new IllegalArgumentException("no column for " + expression);
+			}
+			sql.append(column);
+			return;
+		}
+		if (expression instanceof Constant) {
+			String name = "p" + params.getValues().size();
+			sql.append(':').append(name);
+			params.addValue(name, ((Constant<?>) expression).getConstant());
+			return;
+		}
+		if (expression instanceof Operation && ((Operation<?>) expression).getArgs().size() == 2) {
+			Operation<?> operation = (Operation<?>) expression;
+			Operator operator = operation.getOperator();
+			Expression<?> left = operation.getArg(0);
+			Expression<?> right = operation.getArg(1);
+			if (operator == Ops.AND || operator == Ops.OR) {
+				sql.append('(');
+				append(sql, params, left);
+				sql.append(operator == Ops.AND ? " and " : " or ");
+				append(sql, params, right);
+				sql.append(')');
+				return;
+			}
+			if (operator == Ops.IN) {
+				append(sql, params, left);
+				sql.append(" in (");
+				append(sql, params, right);
+				sql.append(')');
+				return;
+			}
+			String comparison = COMPARISONS.get(operator);
+			if (comparison != null) {
+				append(sql, params, left);
+				sql.append(comparison);
+				append(sql, params, right);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("unsupported expression for JDBC: " + expression);
+	}
+}
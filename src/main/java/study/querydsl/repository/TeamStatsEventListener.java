@@ -0,0 +1,322 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// >> 72. 팀 통계 증분 갱신
+// 하이버네이트 이벤트(insert, update, delete)에서 회원 수, 나이 합, 최소/최대 나이의 변화량만 모아두고
+// 트랜잭션 커밋 직전(flush 이후)에 같은 커넥션으로 team_stats 에 한 번에 반영한다.
+// - 추가는 least / greatest 로 최소/최대를 바로 갱신
+// - 빠진 회원이 있으면 최소/최대는 그 팀만 다시 계산한다.
+// - 행이 없으면 (통계 기능 전에 만들어진 팀) member 테이블을 집계해서 만든다. flush 이후라 이번 변화량도 이미 들어 있다.
+//   동시에 두 트랜잭션이 만들려고 하면 늦은 쪽은 중복 키를 무시하고 변화량만 더한다.
+// - 시작할 때 행이 없는 팀은 한 번에 채운다. (backfill, 스키마를 만들지 않는 fast 프로필에서도)
+// 주의: 벌크 연산(>> 37 ~ 39)은 이벤트가 발생하지 않아서 반영되지 않는다.
+@Slf4j
+@Component
+@DependsOn("changeFeedEventListener")	// 커밋 직전 처리 순서 (ChangeFeedEventListener 참고)
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private final EntityManagerFactory emf;
+	private final JdbcTemplate jdbcTemplate;
+	private final Map<SharedSessionContractImplementor, StatsBatch> batches = new ConcurrentHashMap<>();
+
+	public TeamStatsEventListener(EntityManagerFactory emf, DataSource dataSource) {
+		this.emf = emf;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	// 통계 행이 없는 팀을 member 테이블 집계로 채운다. 이미 있는 팀은 건드리지 않으니 여러 번 돌아도 된다.
+	// 그 사이 요청이 같은 팀의 행을 먼저 만들면 중복 키가 나니까 한 번 더 돈다. (그 팀은 이제 제외된다)
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		try {
+			backfillMissing();
+		} catch (DuplicateKeyException e) {
+			backfillMissing();
+		}
+	}
+
+	private void backfillMissing() {
+		int count = jdbcTemplate.update(
+			"insert into team_stats (team_id, member_count, age_sum, min_age, max_age)" +
+				" select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+				" from team t left join member m on m.team_id = t.team_id" +
+				" where not exists (select 1 from team_stats s where s.team_id = t.team_id)" +
+				" group by t.team_id");
+		if (count > 0) {
+			log.info("team_stats backfilled. teams={}", count);
+		}
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Team) {
+			batch(event.getSession()).teamCreated((Long) event.getId());
+		} else if (event.getEntity() instanceof Member) {
+			Long teamId = teamId(event.getPersister(), event.getState());
+			if (teamId != null) {
+				batch(event.getSession()).added(teamId, age(event.getPersister(), event.getState()));
+			}
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+			return;
+		}
+		Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+		Long newTeamId = teamId(event.getPersister(), event.getState());
+		int oldAge = age(event.getPersister(), event.getOldState());
+		int newAge = age(event.getPersister(), event.getState());
+		if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+			return;
+		}
+
+		StatsBatch batch = batch(event.getSession());
+		if (oldTeamId != null) {
+			batch.removed(oldTeamId, oldAge);
+		}
+		if (newTeamId != null) {
+			batch.added(newTeamId, newAge);
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Team) {
+			batch(event.getSession()).teamDeleted((Long) event.getId());
+		} else if (event.getEntity() instanceof Member) {
+			Long teamId = teamId(event.getPersister(), event.getDeletedState());
+			if (teamId != null) {
+				batch(event.getSession()).removed(teamId, age(event.getPersister(), event.getDeletedState()));
+			}
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private StatsBatch batch(EventSource session) {
+		return batches.computeIfAbsent(session, s -> {
+			StatsBatch batch = new StatsBatch();
+			session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) batch);
+			session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) batch);
+			return batch;
+		});
+	}
+
+	private static Long teamId(EntityPersister persister, Object[] state) {
+		Team team = (Team) state[persister.getEntityMetamodel().getPropertyIndex("team")];
+		return team != null ? team.getId() : null;	// 프록시여도 id 는 초기화 없이 꺼낼 수 있다.
+	}
+
+	private static int age(EntityPersister persister, Object[] state) {
+		return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+	}
+
+	// 팀별 변화량
+	private static class Delta {
+		long count;
+		long ageSum;
+		Integer addedMin;
+		Integer addedMax;
+		boolean recompute;
+	}
+
+	// 트랜잭션(세션) 하나 동안 모은 변화량
+	private class StatsBatch implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+		private final Set<Long> createdTeams = new LinkedHashSet<>();
+		private final Set<Long> deletedTeams = new LinkedHashSet<>();
+		private final Map<Long, Delta> deltas = new LinkedHashMap<>();
+
+		void teamCreated(Long teamId) {
+			createdTeams.add(teamId);
+		}
+
+		void teamDeleted(Long teamId) {
+			deletedTeams.add(teamId);
+		}
+
+		void added(Long teamId, int age) {
+			Delta delta = deltas.computeIfAbsent(teamId, id -> new Delta());
+			delta.count++;
+			delta.ageSum += age;
+			delta.addedMin = delta.addedMin == null ? age : Math.min(delta.addedMin, age);
+			delta.addedMax = delta.addedMax == null ? age : Math.max(delta.addedMax, age);
+		}
+
+		void removed(Long teamId, int age) {
+			Delta delta = deltas.computeIfAbsent(teamId, id -> new Delta());
+			delta.count--;
+			delta.ageSum -= age;
+			delta.recompute = true;
+		}
+
+		@Override
+		public void doBeforeTransactionCompletion(SessionImplementor session) {
+			session.doWork(this::apply);
+		}
+
+		@Override
+		public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+			batches.remove(session);
+		}
+
+		private void apply(Connection connection) throws SQLException {
+			if (!createdTeams.isEmpty()) {
+				try (PreparedStatement insert = connection.prepareStatement(
+					"insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)")) {
+					for (Long teamId : createdTeams) {
+						insert.setLong(1, teamId);
+						insert.addBatch();
+					}
+					insert.executeBatch();
+				}
+			}
+
+			try (PreparedStatement update = connection.prepareStatement(
+				"update team_stats set member_count = member_count + ?, age_sum = age_sum + ?," +
+					" min_age = least(coalesce(min_age, ?), ?), max_age = greatest(coalesce(max_age, ?), ?)" +
+					" where team_id = ?");
+				 PreparedStatement seed = connection.prepareStatement(
+					 "insert into team_stats (team_id, member_count, age_sum, min_age, max_age)" +
+						 " select ?, count(*), coalesce(sum(age), 0), min(age), max(age) from member where team_id = ?");
+				 PreparedStatement recompute = connection.prepareStatement(
+					 "update team_stats set min_age = (select min(age) from member where team_id = ?)," +
+						 " max_age = (select max(age) from member where team_id = ?)" +
+						 " where team_id = ?")) {
+
+				for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+					Long teamId = entry.getKey();
+					Delta delta = entry.getValue();
+					if (deletedTeams.contains(teamId)) {
+						continue;
+					}
+
+					if (executeDelta(update, teamId, delta) == 0) {
+						// 통계 기능 전에 만들어진 팀이면 여기서 행을 만든다. (집계에 이번 변화량까지 들어 있음)
+						if (seedIfAbsent(connection, seed, teamId)) {
+							continue;
+						}
+						executeDelta(update, teamId, delta);
+					}
+					if (delta.recompute) {
+						recompute.setLong(1, teamId);
+						recompute.setLong(2, teamId);
+						recompute.setLong(3, teamId);
+						recompute.addBatch();
+					}
+				}
+				recompute.executeBatch();
+			}
+
+			if (!deletedTeams.isEmpty()) {
+				try (PreparedStatement delete = connection.prepareStatement(
+					"delete from team_stats where team_id = ?")) {
+					for (Long teamId : deletedTeams) {
+						delete.setLong(1, teamId);
+						delete.addBatch();
+					}
+					delete.executeBatch();
+				}
+			}
+		}
+
+		// 팀의 현재 회원을 집계해서 행을 만든다. 만들었으면 true
+		// 다른 트랜잭션이 같은 팀의 행을 먼저 만들었으면 (기본 키 중복) false 를 돌려주고, 호출한 쪽이 변화량만 더한다.
+		// 실패한 insert 만 되돌리도록 savepoint 를 잡는다. (DB 에 따라 실패한 문장이 트랜잭션 전체를 망가뜨린다)
+		private boolean seedIfAbsent(Connection connection, PreparedStatement seed, Long teamId) throws SQLException {
+			Savepoint savepoint = connection.setSavepoint();
+			try {
+				seed.setLong(1, teamId);
+				seed.setLong(2, teamId);
+				seed.executeUpdate();
+				return true;
+			} catch (SQLException e) {
+				if (!isDuplicateKey(e)) {
+					throw e;
+				}
+				connection.rollback(savepoint);
+				return false;
+			} finally {
+				connection.releaseSavepoint(savepoint);
+			}
+		}
+
+		private boolean isDuplicateKey(SQLException e) {
+			return e instanceof SQLIntegrityConstraintViolationException || "23505".equals(e.getSQLState());
+		}
+
+		private int executeDelta(PreparedStatement update, Long teamId, Delta delta) throws SQLException {
+			update.setLong(1, delta.count);
+			update.setLong(2, delta.ageSum);
+			setNullableInt(update, 3, delta.addedMin);
+			setNullableInt(update, 4, delta.addedMin);
+			setNullableInt(update, 5, delta.addedMax);
+			setNullableInt(update, 6, delta.addedMax);
+			update.setLong(7, teamId);
+			return update.executeUpdate();
+		}
+
+		private void setNullableInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+			if (value == null) {
+				statement.setNull(index, Types.INTEGER);
+			} else {
+				statement.setInt(index, value);
+			}
+		}
+	}
+}
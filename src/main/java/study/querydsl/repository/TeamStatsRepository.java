@@ -0,0 +1,54 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+// >> 72. 팀 통계 조회 (회원 수와 상관없이 팀 수만큼만 읽는다)
+@Repository
+public class TeamStatsRepository {
+
+	private final JPAQueryFactory queryFactory;
+
+	public TeamStatsRepository(EntityManager em) {
+		this.queryFactory = new JPAQueryFactory(em);
+	}
+
+	public List<TeamStatsDto> findAll() {
+		return queryFactory
+			.select(new QTeamStatsDto(
+				team.id,
+				team.name,
+				teamStats.memberCount,
+				teamStats.ageSum,
+				teamStats.minAge,
+				teamStats.maxAge))
+			.from(teamStats)
+			.join(team).on(team.id.eq(teamStats.teamId))
+			.orderBy(team.id.asc())
+			.fetch();
+	}
+
+	public Optional<TeamStatsDto> findByTeamId(Long teamId) {
+		return Optional.ofNullable(queryFactory
+			.select(new QTeamStatsDto(
+				team.id,
+				team.name,
+				teamStats.memberCount,
+				teamStats.ageSum,
+				teamStats.minAge,
+				teamStats.maxAge))
+			.from(teamStats)
+			.join(team).on(team.id.eq(teamStats.teamId))
+			.where(teamStats.teamId.eq(teamId))
+			.fetchOne());
+	}
+}
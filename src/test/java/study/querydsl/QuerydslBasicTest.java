@@ -14,7 +14,6 @@ import org.hibernate.dialect.H2Dialect;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.QMemberDto;
@@ -22,6 +21,7 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MethodHandleProjections;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -654,6 +654,82 @@ public class QuerydslBasicTest {
 	}
 
 
+	// >> 70. MethodHandle 프로젝션 ( 30 ~ 33을 리플렉션 없이 )
+	// DTO 클래스별로 생성자, setter, 필드 핸들을 한 번만 만들어 두고 행마다 재사용한다.
+	@Test
+	public void findDtoByMethodHandle() {
+		List<MemberDto> bySetter = queryFactory
+			.select(MethodHandleProjections.bean(MemberDto.class,
+				member.username,
+				member.age))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		List<MemberDto> byField = queryFactory
+			.select(MethodHandleProjections.fields(MemberDto.class,
+				member.username,
+				member.age))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		List<MemberDto> byConstructor = queryFactory
+			.select(MethodHandleProjections.constructor(MemberDto.class,
+				member.username,
+				member.age))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		List<MemberDto> reflective = queryFactory
+			.select(Projections.bean(MemberDto.class,
+				member.username,
+				member.age))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		assertThat(bySetter).containsExactlyElementsOf(reflective);
+		assertThat(byField).containsExactlyElementsOf(reflective);
+		assertThat(byConstructor).containsExactlyElementsOf(reflective);
+	}
+
+	// 생성자 인자는 이름이 없는 expression 이어도 된다.
+	@Test
+	public void findDtoByMethodHandleConstructorWithoutAlias() {
+		List<MemberDto> result = queryFactory
+			.select(MethodHandleProjections.constructor(MemberDto.class,
+				member.username.concat("!"),
+				member.age.add(1)))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		assertThat(result).extracting("username").containsExactly("member1!", "member2!", "member3!", "member4!");
+		assertThat(result).extracting("age").containsExactly(11, 21, 31, 41);
+	}
+
+	@Test
+	public void findUserDtoByMethodHandle() {
+		QMember memberSub = new QMember("memberSub");
+
+		List<UserDto> result = queryFactory
+			.select(MethodHandleProjections.fields(UserDto.class,
+				member.username.as("name"),
+				ExpressionUtils.as(JPAExpressions
+					.select(memberSub.age.max())
+					.from(memberSub), "age")
+			))
+			.from(member)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		assertThat(result).extracting("name").containsExactly("member1", "member2", "member3", "member4");
+		assertThat(result).extracting("age").containsOnly(40);
+	}
+
+
 	// >> 35. DTO로 Q type 등록
 	// DTO로 잡으면 생성자 오류를 런타임이 아닌 컴파일 시기에 잡을 수 있다.
 	// 고민거리: Q 파일 생성해야한다, MemberDTO가 QueryDSL에 의존하게 된다. ( querydsl를 빼면 오류가 뜰 것 )
@@ -752,7 +828,8 @@ public class QuerydslBasicTest {
 	// >> 37. 벌크 연산 ( 수정 삭제 )
 	// 20살 아래라면 비회원처리
 	@Test
-	@Commit    // rollback 되지 않음
+//	@Commit    // rollback 되지 않음
+	// 커밋하면 teamA, teamB 가 남아서 다음 테스트가 같은 이름의 팀을 만들 때 유니크 제약(>> 77)에 걸린다.
 	public void bulkUpdate() {
 
 		// member1 = 10 => 비회원
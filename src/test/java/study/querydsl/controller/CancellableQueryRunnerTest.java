@@ -0,0 +1,191 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// >> 67. 조회 타임아웃 / 취소 테스트
+// DB 대신 latch 로 멈춰 있는 조회를 쓰고, statement 취소는 횟수만 센다.
+// 요청이 떠나는 것(시간 초과, 연결 끊김)은 DeferredResult 완료 콜백이 부르는 leave 를 직접 불러서 흉내 낸다.
+class CancellableQueryRunnerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger cancels = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private CancellableQueryRunner runner;
+
+	@AfterEach
+	public void shutdown() {
+		release.countDown();
+		runner.shutdown();
+	}
+
+	@Test
+	public void cancelOnLastWaiterTest() throws Exception {
+		runner = runner(2, 10);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		Supplier<Integer> query = () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return 42;
+		};
+
+		// 같은 key 로 두 요청이 조회 하나를 같이 기다린다.
+		CancellableQueryRunner.Flight<Integer> first = runner.join("key", query);
+		CancellableQueryRunner.Flight<Integer> second = runner.join("key", query);
+		assertThat(second).isSameAs(first);
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+		// 한 요청이 시간 초과로 떠나도 다른 요청이 기다리고 있으니 취소하지 않는다.
+		runner.leave("key", first);
+		assertThat(cancels).hasValue(0);
+		assertThat(first.isCancelled()).isFalse();
+
+		// 마지막 요청이 떠나면 실행 중인 statement 를 취소한다.
+		runner.leave("key", second);
+		assertThat(cancels).hasValue(1);
+		assertThat(first.isCancelled()).isTrue();
+
+		// 취소된 조회에는 새 요청이 붙지 않는다.
+		CancellableQueryRunner.Flight<Integer> next = runner.join("key", () -> 7);
+		assertThat(next).isNotSameAs(first);
+		assertThat(next.future.get(1, TimeUnit.SECONDS)).isEqualTo(7);
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	public void completedFlightIsNotCancelledTest() throws Exception {
+		runner = runner(1, 10);
+		CancellableQueryRunner.Flight<Integer> flight = runner.join("key", () -> 1);
+		assertThat(flight.future.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+
+		// 응답을 보낸 뒤 떠나는 것은 취소가 아니다.
+		runner.leave("key", flight);
+		assertThat(cancels).hasValue(0);
+	}
+
+	@Test
+	public void skipAbandonedFlightTest() throws Exception {
+		runner = runner(1, 10);
+		CountDownLatch started = new CountDownLatch(1);
+		runner.join("busy", () -> {
+			started.countDown();
+			await(release);
+			return 0;
+		});
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+		// 대기열에 있는 동안 모든 요청이 떠난 조회는 실행하지 않는다.
+		AtomicInteger calls = new AtomicInteger();
+		CancellableQueryRunner.Flight<Integer> queued = runner.join("queued", calls::incrementAndGet);
+		runner.leave("queued", queued);
+		release.countDown();
+
+		assertThatThrownBy(() -> queued.future.get(1, TimeUnit.SECONDS))
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(CancellationException.class);
+		assertThat(calls).hasValue(0);
+		assertThat(cancels).hasValue(0);	// 실행 전이라 취소할 statement 도 없다.
+	}
+
+	@Test
+	public void rejectTest() throws Exception {
+		runner = runner(1, 1);
+		CountDownLatch started = new CountDownLatch(1);
+		runner.join("running", () -> {
+			started.countDown();
+			await(release);
+			return 0;
+		});
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+		runner.join("queued", () -> 0);
+
+		// 스레드와 대기열이 모두 차면 RejectedExecutionException -> 컨트롤러에서 503
+		assertThatThrownBy(() -> runner.join("rejected", () -> 0))
+			.isInstanceOf(RejectedExecutionException.class);
+
+		// 거절된 key 는 남지 않아서 나중에 다시 실행된다.
+		release.countDown();
+		assertThat(runner.join("rejected", () -> 3).future.get(1, TimeUnit.SECONDS)).isEqualTo(3);
+	}
+
+	@Test
+	public void timeoutCounterTest() {
+		runner = runner(1, 1);
+		runner.recordTimeout("/v1/members", "request-timeout");
+		runner.recordTimeout("/v1/members", "request-timeout");
+		runner.recordTimeout("/v1/members", "client-abort");
+
+		assertThat(meterRegistry.counter("member.search.timeouts",
+			"endpoint", "/v1/members", "reason", "request-timeout").count()).isEqualTo(2);
+		assertThat(meterRegistry.counter("member.search.timeouts",
+			"endpoint", "/v1/members", "reason", "client-abort").count()).isEqualTo(1);
+	}
+
+	@Test
+	public void runTest() throws Exception {
+		runner = runner(1, 1);
+		DeferredResult<Integer> result = runner.run("/v1/members", Duration.ofSeconds(1), "key", () -> 2, value -> value * 10);
+
+		// 결과는 조회 스레드에서 채워진다.
+		for (int i = 0; i < 100 && !result.hasResult(); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(result.getResult()).isEqualTo(20);
+	}
+
+	private CancellableQueryRunner runner(int threads, int queueSize) {
+		return new CancellableQueryRunner(new NoOpTransactionManager(), meterRegistry, threads, queueSize) {
+			@Override
+			Runnable statementCanceller() {
+				return () -> {
+					cancels.incrementAndGet();
+					release.countDown();	// 취소된 statement 는 바로 끝난다.
+				};
+			}
+		};
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+		@Override
+		public TransactionStatus getTransaction(TransactionDefinition definition) {
+			return new SimpleTransactionStatus();
+		}
+
+		@Override
+		public void commit(TransactionStatus status) {
+		}
+
+		@Override
+		public void rollback(TransactionStatus status) {
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// >> 80. API 별 하이버네이트 통계 테스트
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "member.admin.statistics-clear-enabled=true")
+class HibernateStatisticsControllerTest {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	public void endpointStatisticsTest() throws Exception {
+		mockMvc.perform(post("/admin/hibernate/statistics/clear"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+			.andExpect(status().isOk());
+		mockMvc.perform(get("/v2/members").param("teamName", "teamB"))
+			.andExpect(status().isOk());
+
+		// 조회 스레드 풀에서 실행된 쿼리도 그 요청의 몫으로 센다.
+		MvcResult async = mockMvc.perform(get("/v1/members").param("teamName", "teamStats"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(async))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/admin/hibernate/statistics"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.global.enabled").value(true))
+			.andExpect(jsonPath("$.endpoints['/v2/members'].requests").value(2))
+			.andExpect(jsonPath("$.endpoints['/v2/members'].statements").value(greaterThanOrEqualTo(2)))
+			.andExpect(jsonPath("$.endpoints['/v1/members'].requests").value(1))
+			.andExpect(jsonPath("$.endpoints['/v1/members'].statements").value(greaterThanOrEqualTo(1)));
+	}
+}
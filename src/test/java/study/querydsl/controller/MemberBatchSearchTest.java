@@ -0,0 +1,80 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// >> 83. 일괄 검색 테스트 (worker 스레드가 따로 조회하므로 데이터를 먼저 커밋한다)
+@SpringBootTest
+class MemberBatchSearchTest {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	MemberBatchSearch memberBatchSearch;
+
+	// 다른 테스트(롤백 방식)가 빈 테이블을 가정하니까 커밋한 데이터는 지운다.
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'batchMember%'");
+		jdbcTemplate.update("delete from team where name like 'batchTeam%'");
+	}
+
+	@Test
+	public void batchSearchTest() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Team teamA = new Team("batchTeamA");
+			Team teamB = new Team("batchTeamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			em.persist(new Member("batchMember1", 10, teamA));
+			em.persist(new Member("batchMember2", 20, teamA));
+			em.persist(new Member("batchMember3", 30, teamB));
+		});
+
+		MemberSearchCondition teamA = new MemberSearchCondition();
+		teamA.setTeamName("batchTeamA");
+		MemberSearchCondition teamB = new MemberSearchCondition();
+		teamB.setTeamName("batchTeamB");
+		MemberSearchCondition sameAsTeamA = new MemberSearchCondition();
+		sameAsTeamA.setTeamName("batchTeamA");
+
+		List<SearchResult<MemberTeamDto>> results =
+			memberBatchSearch.search(Arrays.asList(teamA, teamB, sameAsTeamA), Duration.ofSeconds(3));
+
+		assertThat(results).hasSize(3);
+		assertThat(results.get(0).getContent()).extracting("username").containsExactly("batchMember1", "batchMember2");
+		assertThat(results.get(1).getContent()).extracting("username").containsExactly("batchMember3");
+		assertThat(results.get(2)).isSameAs(results.get(0));
+
+		assertThatThrownBy(() -> memberBatchSearch.search(Collections.emptyList(), Duration.ofSeconds(3)))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> memberBatchSearch.search(Arrays.asList(teamA, null), Duration.ofSeconds(3)))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,111 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 86. hot key 결과 캐시 테스트 (refresh 는 직접 호출)
+// 미리 조회는 다른 스레드에서 하니까 데이터를 직접 커밋하고, 끝나면 지운다.
+@SpringBootTest
+@TestPropertySource(properties = {
+	"member.search-cache.enabled=true",
+	"member.search-cache.refresh-interval=3600000"
+})
+class MemberSearchCacheTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	SearchHotKeys searchHotKeys;
+
+	@Autowired
+	MemberSearchCache memberSearchCache;
+
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'cacheMember%'");
+		jdbcTemplate.update("delete from team where name like 'cacheTeam%'");
+		memberSearchCache.invalidateAll();
+	}
+
+	@Test
+	public void prefillTest() throws Exception {
+		MemberSearchCondition key = saveAndRecord("cacheTeam");
+
+		// 자주 들어온 조건은 요청 전에 미리 채워진다.
+		memberSearchCache.refreshHotKeys().get(5, TimeUnit.SECONDS);
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<SearchResult<MemberTeamDto>> loader = () -> {
+			loads.incrementAndGet();
+			return SearchResult.of(Collections.emptyList(), 10);
+		};
+		SearchResult<MemberTeamDto> cached = memberSearchCache.get(key, loader);
+		assertThat(loads).hasValue(0);
+		assertThat(cached.getContent()).extracting("username").containsExactlyInAnyOrder("cacheMember1", "cacheMember2");
+
+		// 상위에 없는 조건은 캐시하지 않는다.
+		MemberSearchCondition other = new MemberSearchCondition();
+		other.setTeamName("otherTeam");
+		MemberSearchCondition otherKey = SearchHotKeys.normalize(other);
+		memberSearchCache.get(otherKey, loader);
+		memberSearchCache.get(otherKey, loader);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	public void invalidateTest() throws Exception {
+		MemberSearchCondition key = saveAndRecord("cacheTeamB");
+		memberSearchCache.refreshHotKeys().get(5, TimeUnit.SECONDS);
+		assertThat(memberSearchCache.size()).isPositive();
+
+		// 변경 이벤트가 오면 비우고, 다음 요청은 다시 조회한다.
+		memberSearchCache.onChanges(Collections.emptyList());
+		assertThat(memberSearchCache.size()).isZero();
+
+		AtomicInteger loads = new AtomicInteger();
+		memberSearchCache.get(key, () -> {
+			loads.incrementAndGet();
+			return SearchResult.of(Collections.emptyList(), 0);
+		});
+		assertThat(loads).hasValue(1);
+	}
+
+	private MemberSearchCondition saveAndRecord(String teamName) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Team team = new Team(teamName);
+			em.persist(team);
+			em.persist(new Member("cacheMember1", 10, team));
+			em.persist(new Member("cacheMember2", 20, team));
+		});
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName(teamName);
+		MemberSearchCondition key = searchHotKeys.record(condition);
+		searchHotKeys.prune();	// 새 조건은 prune 이후에 상위 N 에 나온다.
+		return key;
+	}
+}
@@ -0,0 +1,76 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 86. hot key 추적 테스트
+class SearchHotKeysTest {
+
+	@Test
+	public void normalizeTest() {
+		MemberSearchCondition a = new MemberSearchCondition();
+		a.setUsername("Member1");
+		a.setUsernames(Arrays.asList("b", "A", "a", null));
+		a.setTeamName("");
+		a.setIgnoreCase(true);
+
+		MemberSearchCondition b = new MemberSearchCondition();
+		b.setUsername("member1");
+		b.setUsernames(Arrays.asList("a", "B"));
+		b.setIgnoreCase(true);
+
+		assertThat(SearchHotKeys.normalize(a)).isEqualTo(SearchHotKeys.normalize(b));
+		assertThat(SearchHotKeys.normalize(a).getUsernames()).containsExactly("a", "b");
+		assertThat(SearchHotKeys.normalize(a).getTeamName()).isNull();
+
+		// 대소문자를 구분하면 그대로
+		b.setIgnoreCase(false);
+		assertThat(SearchHotKeys.normalize(b).getUsernames()).containsExactly("B", "a");
+
+		// username 조건이 없으면 ignoreCase 는 의미가 없다.
+		MemberSearchCondition teamOnly = new MemberSearchCondition();
+		teamOnly.setTeamName("teamA");
+		teamOnly.setIgnoreCase(true);
+		assertThat(SearchHotKeys.normalize(teamOnly)).isEqualTo(SearchHotKeys.normalize(team("teamA")));
+	}
+
+	@Test
+	public void topTest() {
+		SearchHotKeys hotKeys = new SearchHotKeys(1024, 4);
+		for (int i = 0; i < 100; i++) {
+			hotKeys.record(team("teamA"));
+		}
+		for (int i = 0; i < 50; i++) {
+			hotKeys.record(team("teamB"));
+		}
+		for (int i = 0; i < 20; i++) {
+			hotKeys.record(team("rare" + i));	// 한 번씩만
+		}
+		hotKeys.prune();
+
+		List<SearchHotKeys.HotKey> top = hotKeys.top(2);
+		assertThat(top).extracting(hotKey -> hotKey.getCondition().getTeamName()).containsExactly("teamA", "teamB");
+		assertThat(top.get(0).getEstimate()).isGreaterThanOrEqualTo(100);	// 실제보다 작게 나오지 않는다.
+		assertThat(hotKeys.top(100)).hasSize(4);	// capacity 만 남는다.
+		assertThat(hotKeys.getRecorded()).isEqualTo(170);
+
+		// 오래된 횟수는 절반으로 줄어서 새로 많이 들어온 조건이 앞선다.
+		hotKeys.decay();
+		for (int i = 0; i < 80; i++) {
+			hotKeys.record(team("teamC"));
+		}
+		hotKeys.prune();
+		assertThat(hotKeys.top(1)).extracting(hotKey -> hotKey.getCondition().getTeamName()).containsExactly("teamC");
+	}
+
+	private static MemberSearchCondition team(String teamName) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName(teamName);
+		return condition;
+	}
+}
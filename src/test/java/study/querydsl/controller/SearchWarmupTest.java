@@ -0,0 +1,44 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+// >> 79. 워밍업 테스트 (설정 바인딩 + 실행)
+@SpringBootTest
+@TestPropertySource(properties = {
+	"member.warmup.iterations=2",
+	"member.warmup.conditions[0].username=member1",
+	"member.warmup.conditions[1].team-name=teamA",
+	"member.warmup.conditions[1].age-goe=10",
+	"member.warmup.conditions[2].username="
+})
+class SearchWarmupTest {
+
+	@Autowired
+	WarmupProperties properties;
+
+	@Autowired
+	SearchWarmup searchWarmup;
+
+	@Test
+	public void warmupTest() {
+		assertThat(properties.getConditions()).hasSize(3);
+		MemberSearchCondition second = properties.getConditions().get(1);
+		assertThat(second.getTeamName()).isEqualTo("teamA");
+		assertThat(second.getAgeGoe()).isEqualTo(10);
+
+		properties.setEnabled(true);
+		try {
+			// 조건 없는 검색(conditions[2])은 건너뛴다.
+			assertThatCode(() -> searchWarmup.run(null)).doesNotThrowAnyException();
+		} finally {
+			properties.setEnabled(false);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ChangeEventDto;
+import study.querydsl.dto.MemberChangesDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// >> 75. 변경 이벤트 테스트
+// 커밋 직전에 기록되기 때문에 트랜잭션을 직접 커밋한다.
+@SpringBootTest
+class ChangeFeedTest {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	ChangeFeed changeFeed;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	// 다른 테스트(롤백 방식)가 빈 테이블을 가정하니까 커밋한 데이터는 지운다.
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'feedMember%'");
+		jdbcTemplate.update("delete from team where name like 'feedTeam%'");
+	}
+
+	@Test
+	public void changeFeedTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		long after = changeFeed.lastSequence();
+
+		Long[] ids = tx.execute(status -> {
+			Team team = new Team("feedTeam");
+			em.persist(team);
+			Member member = new Member("feedMember", 10, team);
+			em.persist(member);
+			return new Long[]{team.getId(), member.getId()};
+		});
+		tx.executeWithoutResult(status -> em.find(Member.class, ids[1]).setAge(11));
+		tx.executeWithoutResult(status -> memberRepository.renameTeam(ids[0], "feedTeam2"));
+
+		// 롤백된 변경은 기록되지 않는다.
+		tx.executeWithoutResult(status -> {
+			em.find(Member.class, ids[1]).setAge(99);
+			em.flush();
+			status.setRollbackOnly();
+		});
+
+		tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[1])));
+
+		List<ChangeEventDto> events = changeFeed.read(after, 100).stream()
+			.filter(e -> ids[0].equals(e.getTeamId()) || ids[1].equals(e.getEntityId()))
+			.collect(Collectors.toList());
+		assertThat(events)
+			.extracting("entityType", "operation", "age", "teamName")
+			.containsExactly(
+				tuple(ChangeEventDto.TEAM, ChangeEventDto.INSERT, null, "feedTeam"),
+				tuple(ChangeEventDto.MEMBER, ChangeEventDto.INSERT, 10, "feedTeam"),
+				tuple(ChangeEventDto.MEMBER, ChangeEventDto.UPDATE, 11, "feedTeam"),
+				tuple(ChangeEventDto.TEAM, ChangeEventDto.UPDATE, null, "feedTeam2"),
+				tuple(ChangeEventDto.MEMBER, ChangeEventDto.DELETE, 11, "feedTeam2"));
+
+		// 체크포인트
+		long last = events.get(events.size() - 1).getSeq();
+		changeFeed.saveCheckpoint("changeFeedTest", after);
+		changeFeed.saveCheckpoint("changeFeedTest", last);
+		assertThat(changeFeed.loadCheckpoint("changeFeedTest")).isEqualTo(last);
+	}
+
+	// seq 는 커밋 순서대로 빈 번호 없이 매겨진다. (롤백된 트랜잭션은 seq 를 쓰지 않는다)
+	@Test
+	public void sequenceTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		long after = changeFeed.lastSequence();
+
+		tx.executeWithoutResult(status -> em.persist(new Member("feedMember1", 1)));
+		tx.executeWithoutResult(status -> {
+			em.persist(new Member("feedMember2", 2));
+			em.flush();
+			status.setRollbackOnly();
+		});
+		tx.executeWithoutResult(status -> em.persist(new Member("feedMember3", 3)));
+
+		assertThat(changeFeed.read(after, 100))
+			.extracting("seq", "username")
+			.containsExactly(
+				tuple(after + 1, "feedMember1"),
+				tuple(after + 2, "feedMember3"));
+	}
+
+	// 보관 기간이 지난 이벤트 중 maxSeq 이하만 지운다.
+	@Test
+	public void purgeTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		for (int i = 0; i < 3; i++) {
+			int age = i;
+			tx.executeWithoutResult(status -> em.persist(new Member("feedMember" + age, age)));
+		}
+		long last = changeFeed.lastSequence();
+		tx.executeWithoutResult(status -> em.persist(new Member("feedMember3", 3)));
+
+		// 아직 보관 기간 안이면 지우지 않는다.
+		assertThat(changeFeed.purge(last, LocalDateTime.now().minusDays(1), 2)).isZero();
+
+		assertThat(changeFeed.purge(last, LocalDateTime.now().plusMinutes(1), 2)).isGreaterThanOrEqualTo(3);
+		assertThat(changeFeed.read(0, 100))
+			.extracting("seq")
+			.containsExactly(changeFeed.lastSequence());
+	}
+
+	// >> 76. 변경분 동기화 (변경 이벤트 seq 커서)
+	@Test
+	public void memberChangesTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		long start = memberRepository.findChangedAfter(null, 1000).getNext();
+
+		Long[] ids = tx.execute(status -> {
+			Team team = new Team("feedTeam");
+			em.persist(team);
+			Member member1 = new Member("feedMember1", 10, team);
+			Member member2 = new Member("feedMember2", 20, team);
+			em.persist(member1);
+			em.persist(member2);
+			return new Long[]{team.getId(), member1.getId(), member2.getId()};
+		});
+
+		MemberChangesDto first = memberRepository.findChangedAfter(start, 1000);
+		assertThat(first.getChanges()).extracting("username").containsExactly("feedMember1", "feedMember2");
+
+		// 마지막 위치 다음부터는 변경이 없다.
+		MemberChangesDto empty = memberRepository.findChangedAfter(first.getNext(), 1000);
+		assertThat(empty.getChanges()).isEmpty();
+		assertThat(empty.getNext()).isEqualTo(first.getNext());
+
+		// 팀 이름 변경은 그 팀의 (읽는 시점) 회원 전체, 삭제는 deleted 로 내려온다.
+		tx.executeWithoutResult(status -> memberRepository.renameTeam(ids[0], "feedTeam2"));
+		tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[2])));
+		assertThat(memberRepository.findChangedAfter(first.getNext(), 1000).getChanges())
+			.extracting("memberId", "teamName", "deleted")
+			.containsExactly(
+				tuple(ids[1], "feedTeam2", false),
+				tuple(ids[2], "feedTeam2", true));
+
+		// 한 번에 1건씩 받아도 next 로 이어진다.
+		MemberChangesDto one = memberRepository.findChangedAfter(start, 1);
+		assertThat(one.getChanges()).isEmpty();	// 팀 추가 이벤트
+		assertThat(memberRepository.findChangedAfter(one.getNext(), 1).getChanges())
+			.extracting("username").containsExactly("feedMember1");
+	}
+
+	// since 로 시작하면 그 시각 이후에 커밋된 변경부터, next 로 이어 받는다.
+	@Test
+	public void memberChangesSinceTest() throws InterruptedException {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> em.persist(new Member("beforeSince", 10)));
+		Thread.sleep(5);
+		LocalDateTime since = LocalDateTime.now();
+		tx.executeWithoutResult(status -> em.persist(new Member("afterSince", 20)));
+
+		MemberChangesDto changes = memberRepository.findChangedSince(since, 1000);
+		assertThat(changes.getChanges()).extracting("username").containsExactly("afterSince");
+		assertThat(changes.getNext()).isEqualTo(changeFeed.lastSequence());
+
+		// 이후 변경이 없는 시각이면 지금 위치
+		MemberChangesDto empty = memberRepository.findChangedSince(LocalDateTime.now().plusMinutes(1), 1000);
+		assertThat(empty.getChanges()).isEmpty();
+		assertThat(empty.getNext()).isEqualTo(changeFeed.lastSequence());
+	}
+}
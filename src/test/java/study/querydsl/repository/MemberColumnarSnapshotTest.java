@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 73. 컬럼형 스냅샷 테스트 (DB 없이 upsert / delete 로만 채운다)
+class MemberColumnarSnapshotTest {
+
+	@Test
+	public void ageStatsTest() {
+		MemberColumnarSnapshot snapshot = new MemberColumnarSnapshot(new SimpleDriverDataSource(), null);
+		snapshot.upsert(1L, "member1", 10, 100L, "teamA");
+		snapshot.upsert(2L, "member2", 20, 100L, "teamA");
+		snapshot.upsert(3L, "member3", 30, 200L, "teamB");
+		snapshot.upsert(4L, "member4", 40, 200L, "teamB");
+		snapshot.upsert(5L, "member5", 50, null, null);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		MemberAgeStatsDto teamB = snapshot.ageStats(condition);
+		assertThat(teamB.getCount()).isEqualTo(2);
+		assertThat(teamB.getAverageAge()).isEqualTo(35.0);
+
+		condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(40);
+		MemberAgeStatsDto range = snapshot.ageStats(condition);
+		assertThat(range.getCount()).isEqualTo(3);
+		assertThat(range.getMinAge()).isEqualTo(20);
+		assertThat(range.getMaxAge()).isEqualTo(40);
+
+		// 수정 / 삭제 / 팀 이름 변경
+		snapshot.upsert(1L, "member1", 11, 200L, "teamB");
+		snapshot.delete(4L);
+		snapshot.renameTeam(200L, "teamC");
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("teamC");
+		MemberAgeStatsDto teamC = snapshot.ageStats(condition);
+		assertThat(teamC.getCount()).isEqualTo(2);
+		assertThat(teamC.getAgeSum()).isEqualTo(41);
+		assertThat(snapshot.size()).isEqualTo(4);
+
+		condition = new MemberSearchCondition();
+		condition.setUsername("unknown");
+		assertThat(snapshot.count(condition)).isZero();
+
+		// >> 82. 여러 값 조건
+		condition = new MemberSearchCondition();
+		condition.setTeamNames(Arrays.asList("teamA", "teamC", "unknown"));
+		condition.setMemberIds(Arrays.asList(1L, 2L, 3L));
+		assertThat(snapshot.count(condition)).isEqualTo(3);
+
+		condition.setUsernames(Arrays.asList("member2", "member5"));
+		assertThat(snapshot.count(condition)).isEqualTo(1);
+	}
+
+	// 팀 이름은 유일하지 않다. 이름이 같은 팀의 회원은 모두 맞아야 한다.
+	@Test
+	public void sameTeamNameTest() {
+		MemberColumnarSnapshot snapshot = new MemberColumnarSnapshot(new SimpleDriverDataSource(), null);
+		snapshot.upsert(1L, "member1", 10, 100L, "teamA");
+		snapshot.upsert(2L, "member2", 20, 200L, "teamA");
+		snapshot.upsert(3L, "member3", 30, 300L, "teamB");
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		assertThat(snapshot.count(condition)).isEqualTo(2);
+
+		// 한 팀만 이름을 바꾸면 나머지 팀은 그대로 찾아진다.
+		snapshot.renameTeam(200L, "teamB");
+		assertThat(snapshot.count(condition)).isEqualTo(1);
+		condition.setTeamName("teamB");
+		assertThat(snapshot.count(condition)).isEqualTo(2);
+
+		condition = new MemberSearchCondition();
+		condition.setTeamNames(Arrays.asList("teamA", "teamB"));
+		assertThat(snapshot.count(condition)).isEqualTo(3);
+	}
+
+	// compact 후에도 결과는 같고, 지워진 회원과 쓰지 않는 username 은 빠진다.
+	@Test
+	public void compactTest() {
+		MemberColumnarSnapshot snapshot = new MemberColumnarSnapshot(new SimpleDriverDataSource(), null);
+		snapshot.upsert(1L, "member1", 10, 100L, "teamA");
+		snapshot.upsert(2L, "member2", 20, 100L, "teamA");
+		snapshot.upsert(3L, "member3", 30, 200L, "teamB");
+		snapshot.delete(2L);
+		snapshot.upsert(3L, "renamed", 31, 200L, "teamB");
+
+		snapshot.compact();
+
+		assertThat(snapshot.size()).isEqualTo(2);
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername("member3");
+		assertThat(snapshot.count(condition)).isZero();
+		condition.setUsername("renamed");
+		assertThat(snapshot.ageStats(condition).getAgeSum()).isEqualTo(31);
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		assertThat(snapshot.count(condition)).isEqualTo(1);
+
+		// compact 후의 변경도 그대로 반영된다.
+		snapshot.upsert(1L, "member1", 10, 200L, "teamB");
+		snapshot.delete(3L);
+		condition.setTeamName("teamB");
+		assertThat(snapshot.count(condition)).isEqualTo(1);
+		assertThat(snapshot.size()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 63. 추정 count 분기 테스트
+// threshold 를 작게 바꿔야 해서 MemberRepositoryTest 와 나눈다. (그쪽은 기본 설정으로 돈다)
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "member.search.exact-count-threshold=2")
+class MemberEstimatedCountTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	// >> 63. 추정 count 테스트 (threshold 이하면 정확한 count)
+	@Test
+	public void searchPageEstimatedTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamA));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+
+		EstimatedPage<MemberTeamDto> result = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 1));
+
+		assertThat(result.isExactTotal()).isTrue();
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(result.getContent()).extracting("username").containsExactly("member2");
+
+		// threshold(2) 를 넘으면: 나이 조건은 추정할 수 없어서 "threshold 건 이상"
+		condition.setAgeGoe(0);
+		EstimatedPage<MemberTeamDto> atLeast = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 1));
+		assertThat(atLeast.getTotalType()).isEqualTo(EstimatedPage.TotalType.AT_LEAST);
+		assertThat(atLeast.getTotalElements()).isEqualTo(3);
+		assertThat(atLeast.getContent()).hasSize(1);
+
+		// 조건이 없으면 테이블 행 수 추정치 (찾은 건수보다 작게 나오지는 않는다)
+		EstimatedPage<MemberTeamDto> unfiltered = memberRepository.searchPageEstimated(new MemberSearchCondition(), PageRequest.of(0, 1));
+		assertThat(unfiltered.getTotalType()).isEqualTo(EstimatedPage.TotalType.ESTIMATE);
+		assertThat(unfiltered.getTotalElements()).isGreaterThanOrEqualTo(3);
+	}
+}
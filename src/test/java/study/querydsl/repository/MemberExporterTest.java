@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// >> 74. 병렬 내보내기 테스트
+// worker 들이 각자 커넥션으로 읽기 때문에 데이터를 먼저 커밋해둔다.
+@SpringBootTest
+class MemberExporterTest {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	MemberExporter memberExporter;
+
+	// 다른 테스트(롤백 방식)가 빈 테이블을 가정하니까 커밋한 데이터는 지운다.
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'exportMember%'");
+		jdbcTemplate.update("delete from team where name like 'exportTeam%'");
+	}
+
+	@Test
+	public void exportTest(@TempDir Path dir) throws Exception {
+		saveMembers();
+
+		Path target = dir.resolve("members.csv");
+		List<MemberExporter.Partition> partitions = memberExporter.export(target, 3);
+
+		List<String> lines = Files.readAllLines(target);
+		long rows = partitions.stream().mapToLong(MemberExporter.Partition::getRows).sum();
+
+		assertThat(partitions).hasSize(3).allMatch(MemberExporter.Partition::isDone);
+		assertThat(lines.get(0)).isEqualTo("memberId,username,age,teamId,teamName");
+		assertThat(lines).hasSize((int) rows + 1);
+		assertThat(lines).filteredOn(line -> line.contains("exportMember")).hasSize(10);
+		assertThat(memberExporter.getProgress()).isSameAs(partitions);
+	}
+
+	// 한 구간이 실패하면 나머지도 멈추고 segment 파일은 남기지 않는다.
+	@Test
+	public void failedExportTest(@TempDir Path dir) throws Exception {
+		saveMembers();
+
+		Path target = dir.resolve("members.csv");
+		Files.createDirectory(dir.resolve("members.csv.part1"));	// 이 구간은 파일을 만들 수 없다
+
+		assertThatThrownBy(() -> memberExporter.export(target, 3)).isInstanceOf(IllegalStateException.class);
+		try (Stream<Path> files = Files.list(dir)) {
+			assertThat(files).isEmpty();
+		}
+		assertThat(memberExporter.getProgress()).anyMatch(partition -> !partition.isDone());
+	}
+
+	private void saveMembers() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Team team = new Team("exportTeam");
+			em.persist(team);
+			for (int i = 0; i < 10; i++) {
+				em.persist(new Member("exportMember" + i, i, team));
+			}
+		});
+	}
+}
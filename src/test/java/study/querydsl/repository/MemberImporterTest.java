@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 77. CSV 대량 등록 테스트 (chunk 마다 커밋되기 때문에 @Transactional 을 쓰지 않는다)
+@SpringBootTest
+class MemberImporterTest {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	MemberImporter memberImporter;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	// 다른 테스트(롤백 방식)가 빈 테이블을 가정하니까 커밋한 데이터는 지운다.
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'import%'");
+		jdbcTemplate.update("delete from team where name like 'importTeam%'");
+	}
+
+	@Test
+	public void importTest() throws Exception {
+		StringBuilder csv = new StringBuilder("username,age,teamName\n");
+		for (int i = 0; i < 120; i++) {
+			csv.append("importMember").append(i).append(',').append(i).append(',').append(i % 2 == 0 ? "importTeamA" : "importTeamB").append('\n');
+		}
+		csv.append("\"import,Member\",30,\n");	// 따옴표 안의 쉼표, 팀 없음
+		csv.append("badAge,abc,importTeamA\n");
+		csv.append(",10,importTeamA\n");
+		csv.append("negativeAge,-1\n");
+
+		MemberImportResult result = memberImporter.importCsv(
+			new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(result.getImported()).isEqualTo(121);
+		assertThat(result.getRejected()).isEqualTo(3);
+		assertThat(result.getRejects()).extracting("lineNumber").containsExactly(123L, 124L, 125L);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("importTeamA");
+		assertThat(memberRepository.search(condition)).hasSize(60);
+		assertThat(memberRepository.findByUsername("import,Member")).hasSize(1);
+	}
+
+	// 같은 팀 이름으로 동시에 등록해도 팀은 하나만 생긴다. (유니크 제약 + 중복이면 다시 찾기)
+	@Test
+	public void concurrentTeamTest() throws Exception {
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			csv.append("importConcurrent").append(i).append(',').append(i).append(",importTeamX").append(i).append('\n');
+		}
+		byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<MemberImportResult>> futures = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(executor.submit(() -> memberImporter.importCsv(new ByteArrayInputStream(bytes))));
+		}
+		for (Future<MemberImportResult> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS).getRejected()).isZero();
+		}
+		executor.shutdown();
+
+		assertThat(jdbcTemplate.queryForObject(
+			"select count(*) from team where name like 'importTeamX%'", Long.class)).isEqualTo(10);
+		assertThat(jdbcTemplate.queryForObject(
+			"select count(*) from member where username like 'importConcurrent%'", Long.class)).isEqualTo(40);
+	}
+}
@@ -0,0 +1,217 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static study.querydsl.entity.QMember.member;
+
+// >> 65. JDBC 조회 테스트 (JPA 조회와 결과가 같아야 한다)
+@SpringBootTest
+@Transactional
+class MemberJdbcRepositoryTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberJdbcRepository memberJdbcRepository;
+
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+
+	@Test
+	public void searchTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50));
+		em.flush();
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(30);
+
+		List<MemberTeamDto> result = memberJdbcRepository.search(condition);
+
+		assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4", "member5");
+		assertThat(result).filteredOn("username", "member5").extracting("teamId").containsOnlyNulls();
+		assertThat(result).containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByWhere(condition));
+	}
+
+	// 조건 모양마다 JDBC 와 JPA 결과가 같아야 한다. (둘 다 MemberPredicates 에서 만든다)
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("conditions")
+	public void sameResultTest(String shape, BiConsumer<MemberSearchCondition, List<Long>> setUp) {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		List<Member> members = List.of(
+			new Member("member1", 10, teamA),
+			new Member("Member2", 20, teamA),
+			new Member("member3", 30, teamB),
+			new Member("MEMBER4", 40, teamB),
+			new Member("other5", 50));
+		members.forEach(em::persist);
+		em.flush();
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		setUp.accept(condition, members.stream().map(Member::getId).collect(Collectors.toList()));
+
+		List<MemberTeamDto> jdbc = memberJdbcRepository.search(condition);
+		assertThat(jdbc).containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByWhere(condition));
+		if (!shape.equals("none")) {
+			assertThat(jdbc).hasSizeLessThan(5);
+		}
+	}
+
+	static Stream<Arguments> conditions() {
+		return Stream.of(
+			shape("none", (c, ids) -> {
+			}),
+			shape("username", (c, ids) -> c.setUsername("member1")),
+			shape("username ignoreCase", (c, ids) -> {
+				c.setUsername("MEMBER2");
+				c.setIgnoreCase(true);
+			}),
+			shape("usernamePrefix", (c, ids) -> c.setUsernamePrefix("mem")),
+			shape("usernamePrefix ignoreCase", (c, ids) -> {
+				c.setUsernamePrefix("MEM");
+				c.setIgnoreCase(true);
+			}),
+			shape("teamName", (c, ids) -> c.setTeamName("teamB")),
+			shape("ageGoe", (c, ids) -> c.setAgeGoe(30)),
+			shape("ageLoe", (c, ids) -> c.setAgeLoe(20)),
+			shape("ageGoe ageLoe teamName", (c, ids) -> {
+				c.setAgeGoe(20);
+				c.setAgeLoe(40);
+				c.setTeamName("teamA");
+			}),
+			shape("usernames one", (c, ids) -> c.setUsernames(List.of("member3"))),
+			shape("usernames ignoreCase", (c, ids) -> {
+				c.setUsernames(List.of("member2", "member4", "nobody"));
+				c.setIgnoreCase(true);
+			}),
+			shape("teamNames", (c, ids) -> c.setTeamNames(List.of("teamA", "teamC"))),
+			shape("memberIds over chunk", (c, ids) -> {
+				// 없는 id 로 채워서 in 절이 (... or ...) 로 나뉘게 한다
+				List<Long> memberIds = LongStream.rangeClosed(1, InPredicates.CHUNK_SIZE)
+					.map(i -> -i).boxed().collect(Collectors.toList());
+				memberIds.addAll(ids);
+				c.setMemberIds(memberIds);
+				c.setAgeLoe(40);
+			}),
+			shape("all", (c, ids) -> {
+				c.setUsernamePrefix("m");
+				c.setIgnoreCase(true);
+				c.setAgeGoe(10);
+				c.setTeamNames(List.of("teamA", "teamB"));
+				c.setUsernames(List.of("MEMBER1", "member4"));
+			}));
+	}
+
+	private static Arguments shape(String name, BiConsumer<MemberSearchCondition, List<Long>> setUp) {
+		return arguments(name, setUp);
+	}
+
+	// >> 71. 윈도우 함수 테스트 (서브쿼리 방식과 결과가 같아야 한다)
+	@Test
+	public void windowFunctionTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 40, teamB));
+		em.flush();
+
+		QMember memberSub = new QMember("memberSub");
+		JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+		List<String> olderThanAverage = queryFactory
+			.select(member.username)
+			.from(member)
+			.where(member.age.gt(
+				JPAExpressions
+					.select(memberSub.age.avg())
+					.from(memberSub)
+					.where(memberSub.team.eq(member.team))))
+			.orderBy(member.id.asc())
+			.fetch();
+		assertThat(memberJdbcRepository.findOlderThanTeamAverage())
+			.extracting("username").containsExactlyElementsOf(olderThanAverage);
+
+		assertThat(memberJdbcRepository.findOldestPerTeam())
+			.extracting("username").containsExactly("member2", "member4", "member5");
+
+		List<MemberRankDto> ranks = memberJdbcRepository.findRankWithinTeam();
+		assertThat(ranks).extracting("username").containsExactly("member2", "member1", "member4", "member5", "member3");
+		assertThat(ranks).extracting("rank").containsExactly(1L, 2L, 1L, 1L, 3L);
+	}
+	// >> 84. 대소문자 무시 / 앞부분 일치 (JPA, JDBC 결과가 같고 인덱스 범위 스캔이어야 한다)
+	@Test
+	public void usernamePrefixTest() {
+		em.persist(new Member("Alice", 10));
+		em.persist(new Member("alicia", 20));
+		em.persist(new Member("ALIBABA", 30));
+		em.persist(new Member("bob", 40));
+		em.flush();
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix("ali");
+		assertThat(memberJdbcRepository.search(condition)).extracting("username").containsExactly("alicia");
+		assertThat(memberJpaRepository.searchByWhere(condition)).extracting("username").containsExactly("alicia");
+
+		condition.setIgnoreCase(true);
+		assertThat(memberJdbcRepository.search(condition)).extracting("username")
+			.containsExactlyInAnyOrder("Alice", "alicia", "ALIBABA");
+		assertThat(memberJpaRepository.searchByWhere(condition)).extracting("username")
+			.containsExactlyInAnyOrder("Alice", "alicia", "ALIBABA");
+
+		condition = new MemberSearchCondition();
+		condition.setUsername("ALICE");
+		condition.setIgnoreCase(true);
+		assertThat(memberJdbcRepository.search(condition)).extracting("username").containsExactly("Alice");
+		assertThat(memberJpaRepository.searchByWhere(condition)).extracting("username").containsExactly("Alice");
+
+		// 실행 계획에 인덱스가 나와야 한다. (바인드 파라미터 그대로)
+		String plan = em.createNativeQuery(
+				"explain select member_id from member where username_lower >= ?1 and username_lower < ?2")
+			.setParameter(1, "ali")
+			.setParameter(2, PrefixRange.upperBound("ali"))
+			.getSingleResult()
+			.toString();
+		assertThat(plan).containsIgnoringCase("idx_member_username_lower");
+	}
+}
@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
@@ -78,4 +79,55 @@ class MemberJpaRepositoryTest {
 	}
 
 
+	// >> 50. 엔티티 검색도 DTO 검색과 같은 조건을 모두 적용해야 한다. (여러 값 조건 포함)
+	@Test
+	public void searchByWhereAsEntityTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		Member member1 = new Member("member1", 10, teamA);
+		em.persist(member1);
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernames(List.of("member1", "member2", "member3"));
+		condition.setTeamNames(List.of("teamA"));
+		condition.setAgeGoe(10);
+		assertThat(memberJpaRepository.searchByWhereAsEntity(condition))
+			.extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+		condition.setMemberIds(List.of(member1.getId()));
+		assertThat(memberJpaRepository.searchByWhereAsEntity(condition))
+			.extracting("username").containsExactly("member1");
+
+		// 나이 조건이 하나만 있어도 된다
+		condition = new MemberSearchCondition();
+		condition.setAgeLoe(20);
+		assertThat(memberJpaRepository.searchByWhereAsEntity(condition))
+			.extracting("username").containsExactlyInAnyOrder("member1", "member2");
+	}
+
+	// >> 68. 최대 건수 제한 테스트 (member.search.max-rows 기본값 1000)
+	@Test
+	public void searchByWhereBoundedTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for (int i = 0; i < 1001; i++) {
+			em.persist(new Member("member" + i, i, teamA));
+		}
+
+		SearchResult<MemberTeamDto> all = memberJpaRepository.searchByWhereBounded(new MemberSearchCondition(), null);
+		assertThat(all.isTruncated()).isTrue();
+		assertThat(all.getContent()).hasSize(1000);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeLoe(9);
+		SearchResult<MemberTeamDto> result = memberJpaRepository.searchByWhereBounded(condition, null);
+		assertThat(result.isTruncated()).isFalse();
+		assertThat(result.getContent()).hasSize(10);
+	}
+
 }
@@ -5,16 +5,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchResult;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 // >> 55. 스프링 데이터 JPA 리포지토리 테스트
 @SpringBootTest
@@ -105,4 +112,178 @@ class MemberRepositoryTest {
 	}
 
 
+	// >> 61. 정렬 테스트
+	@Test
+	public void searchPageSortTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+		Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+
+		assertThat(result.getTotalElements()).isEqualTo(4);
+		assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+	}
+
+	@Test
+	public void searchPageSortNotAllowedTest() {
+		PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("teamId"));
+
+		assertThatThrownBy(() -> memberRepository.searchPageSimple(new MemberSearchCondition(), pageRequest))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// >> 62. keyset 페이징 테스트
+	@Test
+	public void searchSliceAfterTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 20, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50));	// 팀 없음 (teamName null 은 가장 큰 값)
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("teamName", "age"));
+
+		Slice<MemberTeamDto> first = memberRepository.searchSliceAfter(condition, null, pageRequest);
+		assertThat(first.hasNext()).isTrue();
+		assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+
+		MemberTeamDto last = first.getContent().get(first.getNumberOfElements() - 1);
+		Slice<MemberTeamDto> second = memberRepository.searchSliceAfter(condition, last, pageRequest);
+		assertThat(second.hasNext()).isTrue();
+		assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+
+		last = second.getContent().get(second.getNumberOfElements() - 1);
+		Slice<MemberTeamDto> third = memberRepository.searchSliceAfter(condition, last, pageRequest);
+		assertThat(third.hasNext()).isFalse();
+		assertThat(third.getContent()).extracting("username").containsExactly("member5");
+
+		// 팀이 없는 행 다음 페이지
+		Slice<MemberTeamDto> fourth = memberRepository.searchSliceAfter(condition, third.getContent().get(0), pageRequest);
+		assertThat(fourth.getContent()).isEmpty();
+
+		// 내림차순 (null 이 먼저)
+		PageRequest desc = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "teamName", "age"));
+		Slice<MemberTeamDto> descFirst = memberRepository.searchSliceAfter(condition, null, desc);
+		assertThat(descFirst.getContent()).extracting("username").containsExactly("member5", "member4");
+		Slice<MemberTeamDto> descSecond = memberRepository.searchSliceAfter(condition, descFirst.getContent().get(0), desc);
+		assertThat(descSecond.getContent()).extracting("username").containsExactly("member4", "member3");
+	}
+
+	// id tie-breaker 는 마지막 정렬 조건과 같은 방향 (인덱스를 한 방향으로 읽을 수 있게)
+	@Test
+	public void tieBreakerDirectionTest() {
+		List<Sort.Order> orders = MemberSort.ordersOf(Sort.by(Sort.Direction.DESC, "age"));
+		assertThat(orders).containsExactly(Sort.Order.desc("age"), Sort.Order.desc("memberId"));
+
+		orders = MemberSort.ordersOf(Sort.by(Sort.Order.asc("teamName"), Sort.Order.desc("age")));
+		assertThat(orders).containsExactly(Sort.Order.asc("teamName"), Sort.Order.desc("age"), Sort.Order.desc("memberId"));
+
+		assertThat(MemberSort.ordersOf(Sort.unsorted())).containsExactly(Sort.Order.asc("memberId"));
+	}
+
+	// >> 64. 역정규화 조회 테스트
+	@Test
+	public void searchDenormalizedTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+
+		assertThat(memberRepository.searchDenormalized(condition))
+			.containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+
+		long count = memberRepository.renameTeam(teamB.getId(), "teamC");
+		assertThat(count).isEqualTo(2);
+
+		condition.setTeamName("teamC");
+		assertThat(memberRepository.searchDenormalized(condition))
+			.extracting("username").containsExactly("member3", "member4");
+		assertThat(memberRepository.search(condition))
+			.extracting("username").containsExactly("member3", "member4");
+	}
+
+	// >> 69. 필요한 필드만 조회 테스트
+	@Test
+	public void searchFieldsTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+
+		SearchResult<Map<String, Object>> result =
+			memberRepository.searchFields(condition, MemberField.parse("username,teamId"));
+
+		assertThat(result.isTruncated()).isFalse();
+		assertThat(result.getContent()).hasSize(1);
+		assertThat(result.getContent().get(0))
+			.containsOnlyKeys("username", "teamId")
+			.containsEntry("username", "member2")
+			.containsEntry("teamId", teamA.getId());
+	}
+
+	// >> 82. 여러 값 조건 테스트
+	@Test
+	public void searchInTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		Team teamC = new Team("teamC");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(teamC);
+
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamB);
+		Member member3 = new Member("member3", 30, teamC);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamNames(Arrays.asList("teamA", "teamC", "teamA"));
+		assertThat(memberRepository.search(condition)).extracting("username").containsExactlyInAnyOrder("member1", "member3");
+		assertThat(memberRepository.searchDenormalized(condition)).extracting("username").containsExactlyInAnyOrder("member1", "member3");
+
+		condition.setUsernames(Arrays.asList("member3", "member2"));
+		assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member3");
+
+		// chunk 크기를 넘는 id 목록 (in (...) or in (...))
+		List<Long> memberIds = new ArrayList<>();
+		for (long id = -1000; id < 0; id++) {
+			memberIds.add(id);
+		}
+		memberIds.add(member2.getId());
+		memberIds.add(member3.getId());
+		MemberSearchCondition idCondition = new MemberSearchCondition();
+		idCondition.setMemberIds(memberIds);
+		assertThat(memberRepository.searchPageComplex(idCondition, PageRequest.of(0, 10)).getContent())
+			.extracting("username").containsExactly("member2", "member3");
+	}
 }
@@ -0,0 +1,86 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 85. 자동완성 색인 테스트 (DB 없이 upsert / delete 로만 채운다)
+class MemberSuggestIndexTest {
+
+	@Test
+	public void suggestTest() {
+		MemberSuggestIndex index = new MemberSuggestIndex(new SimpleDriverDataSource(), null);
+		index.upsert(1L, "member1");
+		index.upsert(2L, "member2");
+		index.upsert(3L, "Member10");
+		index.upsert(4L, "newMember");
+		index.upsert(5L, "kim");
+		index.upsert(6L, "member1");	// 같은 이름의 다른 회원
+
+		// 앞부분 일치가 먼저, 그다음 짧은 순, 이름 순 (대소문자 무시)
+		assertThat(index.suggest("member", 10)).containsExactly("member1", "member2", "Member10", "newMember");
+		assertThat(index.suggest("MEMBER1", 10)).containsExactly("member1", "Member10");
+		assertThat(index.suggest("mber", 2)).containsExactly("member1", "member2");
+
+		// 1 ~ 2 글자는 앞부분 일치만
+		assertThat(index.suggest("k", 10)).containsExactly("kim");
+		assertThat(index.suggest("me", 10)).containsExactly("member1", "member2", "Member10");
+		assertThat(index.suggest("im", 10)).isEmpty();
+
+		// trigram 은 모두 있지만 이어져 있지 않은 경우 ("emb", "mbe" 는 있지만 "embe" 가 아님)
+		index.upsert(7L, "xembyxmbez");
+		assertThat(index.suggest("embez", 10)).isEmpty();
+		assertThat(index.suggest("xmbez", 10)).containsExactly("xembyxmbez");
+
+		// 이름 변경, 삭제 (같은 이름의 회원이 남아 있으면 계속 나온다)
+		index.upsert(2L, "leader2");
+		index.delete(1L);
+		assertThat(index.suggest("member", 10)).containsExactly("member1", "Member10", "newMember");
+		index.delete(6L);
+		assertThat(index.suggest("member", 10)).containsExactly("Member10", "newMember");
+		assertThat(index.suggest("lead", 10)).containsExactly("leader2");
+		assertThat(index.size()).isEqualTo(5);
+
+		assertThat(index.suggest("unknown", 10)).isEmpty();
+		assertThat(index.suggest("", 10)).isEmpty();
+
+		// compact: 회원이 없어진 이름(member1, member2)은 사전에서 빠지고 결과는 그대로
+		int before = index.dictionarySize();
+		index.compact();
+		assertThat(index.dictionarySize()).isEqualTo(before - 2);
+		assertThat(index.suggest("member", 10)).containsExactly("Member10", "newMember");
+		assertThat(index.suggest("lead", 10)).containsExactly("leader2");
+		assertThat(index.size()).isEqualTo(5);
+		index.upsert(8L, "member3");
+		assertThat(index.suggest("me", 10)).containsExactly("member3", "Member10");
+	}
+
+	@Test
+	public void shortPrefixTopTest() {
+		MemberSuggestIndex index = new MemberSuggestIndex(new SimpleDriverDataSource(), null);
+		for (long i = 0; i < 60; i++) {
+			index.upsert(i, String.format("ab%02d", i));
+		}
+		index.upsert(100L, "abc");
+
+		// 상위 MAX_LIMIT 개까지만, 짧은 것, 이름 순
+		List<String> top = index.suggest("a", 100);
+		assertThat(top).hasSize(MemberSuggestIndex.MAX_LIMIT);
+		assertThat(top.subList(0, 3)).containsExactly("abc", "ab00", "ab01");
+		assertThat(index.suggest("AB", 2)).containsExactly("abc", "ab00");
+
+		// 상위 목록의 이름이 없어지면 뒤에 있던 이름으로 다시 채운다
+		index.delete(100L);
+		index.upsert(0L, "zz");
+		assertThat(index.suggest("ab", 2)).containsExactly("ab01", "ab02");
+		assertThat(index.suggest("a", 100)).hasSize(MemberSuggestIndex.MAX_LIMIT).endsWith("ab50");
+		assertThat(index.suggest("z", 10)).containsExactly("zz");
+
+		// 새 이름이 상위 순위면 끼워 넣는다
+		index.upsert(101L, "a");
+		assertThat(index.suggest("a", 2)).containsExactly("a", "ab01");
+	}
+}
@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// >> 66. 동시 요청 합치기 테스트
+class SingleFlightTest {
+
+	@Test
+	public void coalesceTest() throws Exception {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Integer>> futures = new ArrayList<>();
+		futures.add(executor.submit(() -> singleFlight.execute("key", () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return 42;
+		})));
+		started.await();
+		for (int i = 0; i < 3; i++) {
+			futures.add(executor.submit(() -> singleFlight.execute("key", calls::incrementAndGet)));
+		}
+		// 뒤의 요청들이 기다리는 상태가 될 때까지
+		while (singleFlight.getCoalesced() < 3) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		for (Future<Integer> future : futures) {
+			assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo(42);
+		}
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(singleFlight.getCoalescingRatio()).isEqualTo(0.75);
+		executor.shutdown();
+	}
+
+	@Test
+	public void failureTest() {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+		assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+			throw new IllegalStateException("fail");
+		})).isInstanceOf(IllegalStateException.class);
+
+		// 실패한 결과는 남지 않고 다음 요청은 새로 실행된다.
+		assertThat(singleFlight.execute("key", () -> 1)).isEqualTo(1);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// 조건 key 는 만든 뒤 조건 객체가 바뀌어도 그대로이고, 타임아웃이 다르면 다른 key 다.
+	@Test
+	public void conditionKeyTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setUsernames(new ArrayList<>(List.of("member1")));
+		List<Object> key = condition.toKey(Duration.ofSeconds(1));
+		int hash = key.hashCode();
+
+		condition.setTeamName("teamB");
+		condition.getUsernames().add("member2");
+		assertThat(key.hashCode()).isEqualTo(hash);
+
+		MemberSearchCondition same = new MemberSearchCondition();
+		same.setTeamName("teamA");
+		same.setUsernames(List.of("member1"));
+		assertThat(same.toKey(Duration.ofSeconds(1))).isEqualTo(key);
+		assertThat(same.toKey(Duration.ofSeconds(2))).isNotEqualTo(key);
+		assertThatThrownBy(() -> key.add("x")).isInstanceOf(UnsupportedOperationException.class);
+	}
+}
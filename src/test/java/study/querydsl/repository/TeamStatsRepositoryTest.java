@@ -0,0 +1,137 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// >> 72. 팀 통계 증분 갱신 테스트
+// 커밋 직전에 반영되기 때문에 롤백 테스트(@Transactional)가 아니라 트랜잭션을 직접 커밋한다.
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	TeamStatsRepository teamStatsRepository;
+
+	@Autowired
+	TeamStatsEventListener teamStatsEventListener;
+
+	// 다른 테스트(롤백 방식)가 빈 테이블을 가정하니까 커밋한 데이터는 지운다.
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("delete from member where username like 'statsMember%'");
+		jdbcTemplate.update("delete from team where name like 'statsTeam%'");
+	}
+
+	@Test
+	public void incrementalStatsTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		Long[] ids = tx.execute(status -> {
+			Team teamA = new Team("statsTeamA");
+			Team teamB = new Team("statsTeamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			Member member1 = new Member("statsMember1", 10, teamA);
+			Member member2 = new Member("statsMember2", 20, teamA);
+			Member member3 = new Member("statsMember3", 30, teamA);
+			em.persist(member1);
+			em.persist(member2);
+			em.persist(member3);
+			return new Long[]{teamA.getId(), teamB.getId(), member1.getId(), member3.getId()};
+		});
+		Long teamAId = ids[0];
+		Long teamBId = ids[1];
+
+		TeamStatsDto statsA = teamStatsRepository.findByTeamId(teamAId).get();
+		assertThat(statsA.getMemberCount()).isEqualTo(3);
+		assertThat(statsA.getAgeSum()).isEqualTo(60);
+		assertThat(statsA.getAverageAge()).isEqualTo(20.0);
+		assertThat(statsA.getMinAge()).isEqualTo(10);
+		assertThat(statsA.getMaxAge()).isEqualTo(30);
+
+		// 팀 변경, 나이 변경, 삭제
+		tx.executeWithoutResult(status -> {
+			Member member1 = em.find(Member.class, ids[2]);
+			Member member3 = em.find(Member.class, ids[3]);
+			member1.changeTeam(em.find(Team.class, teamBId));
+			member3.setAge(25);
+		});
+
+		statsA = teamStatsRepository.findByTeamId(teamAId).get();
+		assertThat(statsA.getMemberCount()).isEqualTo(2);
+		assertThat(statsA.getAgeSum()).isEqualTo(45);
+		assertThat(statsA.getMinAge()).isEqualTo(20);
+		assertThat(statsA.getMaxAge()).isEqualTo(25);
+
+		TeamStatsDto statsB = teamStatsRepository.findByTeamId(teamBId).get();
+		assertThat(statsB.getMemberCount()).isEqualTo(1);
+		assertThat(statsB.getMinAge()).isEqualTo(10);
+
+		tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[2])));
+
+		statsB = teamStatsRepository.findByTeamId(teamBId).get();
+		assertThat(statsB.getMemberCount()).isEqualTo(0);
+		assertThat(statsB.getMinAge()).isNull();
+	}
+
+	// 통계 기능 전에 만들어진 팀 (통계 행이 없음)
+	@Test
+	public void missingStatsRowTest() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Long teamId = saveTeamWithoutStats("statsTeamOld");
+
+		// 회원 한 명이 추가되면 그 팀의 전체 회원으로 행을 만든다.
+		tx.executeWithoutResult(status -> em.persist(new Member("statsMember3", 5, em.find(Team.class, teamId))));
+
+		TeamStatsDto stats = teamStatsRepository.findByTeamId(teamId).get();
+		assertThat(stats.getMemberCount()).isEqualTo(3);
+		assertThat(stats.getAgeSum()).isEqualTo(35);
+		assertThat(stats.getMinAge()).isEqualTo(5);
+		assertThat(stats.getMaxAge()).isEqualTo(20);
+	}
+
+	@Test
+	public void backfillTest() {
+		Long teamId = saveTeamWithoutStats("statsTeamOld");
+
+		teamStatsEventListener.backfill();
+
+		TeamStatsDto stats = teamStatsRepository.findByTeamId(teamId).get();
+		assertThat(stats.getMemberCount()).isEqualTo(2);
+		assertThat(stats.getAgeSum()).isEqualTo(30);
+		assertThat(stats.getMinAge()).isEqualTo(10);
+		assertThat(stats.getMaxAge()).isEqualTo(20);
+	}
+
+	private Long saveTeamWithoutStats(String teamName) {
+		Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+			Team team = new Team(teamName);
+			em.persist(team);
+			em.persist(new Member("statsMember1", 10, team));
+			em.persist(new Member("statsMember2", 20, team));
+			return team.getId();
+		});
+		jdbcTemplate.update("delete from team_stats where team_id = ?", teamId);
+		return teamId;
+	}
+}